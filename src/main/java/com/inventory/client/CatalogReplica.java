@@ -0,0 +1,234 @@
+package com.inventory.client;
+
+import com.inventory.common.CatalogEvent;
+import com.inventory.common.EventListener;
+import com.inventory.common.InventoryService;
+import com.inventory.common.Product;
+import com.inventory.common.ProductChanges;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+/**
+ * Local copy of the product catalog, loaded once and then patched in place
+ * from the server's catalog events. All methods are called on the JavaFX
+ * thread.
+ *
+ * A gap in event sequence numbers (or a bulk change on the server) triggers a
+ * catch-up through the server's delta sync, fetching only rows changed since
+ * the catalog version we last saw. Syncs fetch on a background thread and
+ * apply the result on the JavaFX thread, so the UI stays responsive. Events
+ * that arrive meanwhile are held and replayed after the result is applied;
+ * events are absolute, so replaying them cannot leave the copy wrong.
+ */
+public class CatalogReplica implements EventListener {
+    private static final int PAGE_SIZE = 500;
+    private static final Comparator<Product> BY_ID = Comparator.comparingInt(Product::getId);
+
+    private final InventoryService service;
+    private final String sessionToken;
+    private final Consumer<String> log;
+    private final ObservableList<Product> products = FXCollections.observableArrayList();
+    private final Map<Integer, Product> byId = new HashMap<>();
+    private long lastSeq = -1; // unknown until the server's HELLO
+    private long catalogVersion = -1; // delta sync position, unknown until the first load
+
+    private boolean syncing = false;
+    private final List<CatalogEvent> heldEvents = new ArrayList<>();
+    // Sync requested while one was running; run once it finishes
+    private boolean resyncAgain = false;
+    private boolean reloadAgain = false;
+
+    public CatalogReplica(InventoryService service, String sessionToken, Consumer<String> log) {
+        this.service = service;
+        this.sessionToken = sessionToken;
+        this.log = log;
+    }
+
+    public ObservableList<Product> getProducts() {
+        return products;
+    }
+
+    // null if the product is not in the local copy
+    public Product getProduct(int productId) {
+        return byId.get(productId);
+    }
+
+    @Override
+    public void onCatalogEvent(CatalogEvent event) {
+        if (syncing) {
+            heldEvents.add(event);
+            return;
+        }
+        if (event.getType() == CatalogEvent.Type.HELLO) {
+            lastSeq = event.getSeq();
+            resync();
+            return;
+        }
+        if (lastSeq >= 0 && event.getSeq() != lastSeq + 1) {
+            log.accept("Missed catalog updates (" + lastSeq + " -> " + event.getSeq() + "), reloading");
+            lastSeq = event.getSeq();
+            resync();
+            return;
+        }
+        lastSeq = event.getSeq();
+
+        switch (event.getType()) {
+            case PRODUCT_ADDED:
+            case PRODUCT_UPDATED:
+                upsert(event.toProduct());
+                break;
+            case PRODUCT_DELETED:
+                if (byId.remove(event.getProductId()) != null) {
+                    products.remove(indexOf(event.getProductId()));
+                }
+                break;
+            case STOCK_CHANGED:
+                Product current = byId.get(event.getProductId());
+                if (current != null) {
+                    upsert(current.withQuantity(event.getQuantity()));
+                }
+                break;
+            case CATALOG_RELOADED:
+                resync();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void upsert(Product p) {
+        Product old = byId.put(p.getId(), p);
+        int index = indexOf(p.getId());
+        if (old == null) {
+            products.add(-index - 1, p);
+        } else {
+            // Replace the element so table and combo box cells refresh
+            products.set(index, p);
+        }
+    }
+
+    // The list is kept in id order, so positions are found by binary search
+    private int indexOf(int productId) {
+        return Collections.binarySearch(products, new Product(productId, null, 0, 0, null), BY_ID);
+    }
+
+    /**
+     * Catch up with the server, fetching only what changed since the last sync
+     */
+    public void resync() {
+        if (catalogVersion < 0) {
+            reload();
+            return;
+        }
+        if (syncing) {
+            resyncAgain = true;
+            return;
+        }
+        long since = catalogVersion;
+        startSync(() -> {
+            List<ProductChanges> pages = new ArrayList<>();
+            ProductChanges changes;
+            long version = since;
+            do {
+                changes = service.getProductsChangedSince(sessionToken, version, PAGE_SIZE);
+                pages.add(changes);
+                version = changes.getVersion();
+            } while (changes.hasMore());
+            return () -> {
+                for (ProductChanges page : pages) {
+                    for (int id : page.getDeletedIds()) {
+                        if (byId.remove(id) != null) {
+                            products.remove(indexOf(id));
+                        }
+                    }
+                    for (Product p : page.getChanged()) {
+                        upsert(p);
+                    }
+                    catalogVersion = page.getVersion();
+                }
+            };
+        });
+    }
+
+    /**
+     * Rebuild the whole catalog from the server, page by page
+     */
+    public void reload() {
+        if (syncing) {
+            reloadAgain = true;
+            return;
+        }
+        startSync(() -> {
+            Map<Integer, Product> all = new HashMap<>();
+            ProductChanges changes;
+            long version = 0;
+            do {
+                changes = service.getProductsChangedSince(sessionToken, version, PAGE_SIZE);
+                for (int id : changes.getDeletedIds()) {
+                    all.remove(id);
+                }
+                for (Product p : changes.getChanged()) {
+                    all.put(p.getId(), p);
+                }
+                version = changes.getVersion();
+            } while (changes.hasMore());
+
+            List<Product> sorted = new ArrayList<>(all.values());
+            sorted.sort(BY_ID);
+            long loadedVersion = version;
+            return () -> {
+                byId.clear();
+                byId.putAll(all);
+                products.setAll(sorted);
+                catalogVersion = loadedVersion;
+            };
+        });
+    }
+
+    // Fetches off the JavaFX thread and returns what to apply on it
+    private interface Fetch {
+        Runnable run() throws Exception;
+    }
+
+    private void startSync(Fetch fetch) {
+        syncing = true;
+        Thread worker = new Thread(() -> {
+            Runnable apply;
+            try {
+                apply = fetch.run();
+            } catch (Exception e) {
+                apply = () -> log.accept("Error refreshing table: " + e.getMessage());
+            }
+            Runnable result = apply;
+            Platform.runLater(() -> finishSync(result));
+        }, "catalog-sync");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void finishSync(Runnable apply) {
+        apply.run();
+        syncing = false;
+        List<CatalogEvent> held = new ArrayList<>(heldEvents);
+        heldEvents.clear();
+        for (CatalogEvent event : held) {
+            onCatalogEvent(event);
+        }
+        if (reloadAgain) {
+            reloadAgain = false;
+            resyncAgain = false;
+            reload();
+        } else if (resyncAgain) {
+            resyncAgain = false;
+            resync();
+        }
+    }
+}
@@ -1,30 +1,61 @@
 package com.inventory.client;
 
+import com.inventory.common.BatchOperation;
+import com.inventory.common.BatchResult;
+import com.inventory.common.CartLine;
+import com.inventory.common.CartLineResult;
+import com.inventory.common.CartResult;
+import com.inventory.common.EventListener;
+import com.inventory.common.ImportResult;
 import com.inventory.common.InventoryService;
+import com.inventory.common.LowStockItem;
+import com.inventory.common.Notice;
+import com.inventory.common.Page;
 import com.inventory.common.Product;
+import com.inventory.common.ReportGrouping;
 import com.inventory.common.SaleRecord;
+import com.inventory.common.SalesAggregate;
+import com.inventory.common.SalesQuery;
+import com.inventory.common.SalesSummary;
+import com.inventory.common.SalesWindow;
+import com.inventory.common.SessionExpiredException;
+import com.inventory.common.TopSeller;
+import com.inventory.common.TopSellerMetric;
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import javafx.application.Platform;
 
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 public class ClientApp extends Application {
     private InventoryService service;
-    private ObservableList<Product> productList = FXCollections.observableArrayList();
+    private CatalogReplica replica;
     private ObservableList<SaleRecord> salesList = FXCollections.observableArrayList();
     private TextArea logArea;
     private Stage primaryStage;
@@ -32,17 +63,38 @@ public class ClientApp extends Application {
 
     // UI Controls Inventory
     private TableView<Product> table;
-    private TextField nameField, priceField, qtyField, catField;
+    private TextField nameField, priceField, qtyField, catField, reorderField;
 
     // UI Controls Billing
     private TextField billQtyField;
-    private ComboBox<Product> productComboBox;
+    private TextField productSearchField;
+    private ListView<Product> productResultsView;
+    private final ObservableList<Product> productResults = FXCollections.observableArrayList();
+    private PauseTransition searchDelay;
+    private int searchGeneration = 0; // answers to older searches are dropped
+    private final List<CartLine> cartLines = new ArrayList<>();
+    private final ObservableList<String> cartItems = FXCollections.observableArrayList();
 
     // UI Controls Reports
     private TableView<SaleRecord> salesTable;
     private Label totalSalesLabel;
+    private Button loadMoreSalesBtn;
+    private SalesQuery nextSalesQuery;
+    private DatePicker fromDatePicker, toDatePicker;
+    private ComboBox<ReportGrouping> groupingComboBox;
+    private ObservableList<SalesAggregate> breakdownList = FXCollections.observableArrayList();
+    private ComboBox<SalesWindow> topWindowComboBox;
+    private ComboBox<TopSellerMetric> topMetricComboBox;
+    private ObservableList<TopSeller> topSellersList = FXCollections.observableArrayList();
+
+    private static final int SALES_PAGE_SIZE = 200;
+    private static final int LOW_STOCK_LIMIT = 200;
+    private static final int TOP_SELLERS_LIMIT = 10;
+    private static final int SEARCH_RESULTS_LIMIT = 20;
+    private static final int SEARCH_DELAY_MILLIS = 150;
 
     private String serverHost = "localhost";
+    private String sessionToken;
 
     public static void main(String[] args) {
         launch(args);
@@ -69,29 +121,82 @@ public class ClientApp extends Application {
         // Connect to RMI immediately to allow login
         try {
             Registry registry = LocateRegistry.getRegistry(serverHost, 1099);
-            service = (InventoryService) registry.lookup("InventoryService");
-
-            // Show login screen with remote service
-            LoginScreen loginScreen = new LoginScreen(service, primaryStage, () -> {
-                // This runs after successful login
-                loadMainApplication(primaryStage);
-            });
-
-            primaryStage.setScene(loginScreen.createLoginScene());
-            primaryStage.show();
+            service = watchSession((InventoryService) registry.lookup("InventoryService"));
 
+            showLogin();
         } catch (Exception e) {
             new Alert(Alert.AlertType.ERROR, "Cannot connect to Server at " + serverHost
                     + "\nMake sure the server is running.\nError: " + e.getMessage()).showAndWait();
         }
     }
 
+    // Show login screen with remote service
+    private void showLogin() {
+        LoginScreen loginScreen = new LoginScreen(service, primaryStage, user -> {
+            // This runs after successful login
+            sessionToken = user.getSessionToken();
+            loadMainApplication(primaryStage);
+        });
+
+        primaryStage.setScene(loginScreen.createLoginScene());
+        primaryStage.show();
+    }
+
+    /**
+     * Wrap the remote service so that any call failing because the session
+     * expired sends the user back to the login screen, wherever it was made.
+     * The failure is still thrown to the caller.
+     */
+    private InventoryService watchSession(InventoryService remote) {
+        return (InventoryService) Proxy.newProxyInstance(InventoryService.class.getClassLoader(),
+                new Class<?>[] { InventoryService.class }, (proxy, method, args) -> {
+                    try {
+                        return method.invoke(remote, args);
+                    } catch (InvocationTargetException e) {
+                        Throwable failure = e.getCause();
+                        // RMI hands the server's exception back wrapped in a ServerException
+                        for (Throwable t = failure; t != null; t = t.getCause()) {
+                            if (t instanceof SessionExpiredException) {
+                                String token = args != null && args.length > 0 && args[0] instanceof String
+                                        ? (String) args[0] : null;
+                                Platform.runLater(() -> sessionExpired(token));
+                                break;
+                            }
+                        }
+                        throw failure;
+                    }
+                });
+    }
+
+    private void sessionExpired(String token) {
+        // Several calls can fail on the same session; only the first, and only if
+        // the user has not logged in again meanwhile, goes back to login
+        if (sessionToken == null || !sessionToken.equals(token)) {
+            return;
+        }
+        if (socketClient != null) {
+            socketClient.close();
+        }
+        sessionToken = null;
+        showLogin();
+        new Alert(Alert.AlertType.WARNING, "Your session has expired. Please log in again.").show();
+    }
+
     private void loadMainApplication(Stage primaryStage) {
         // Connect Socket
         if (socketClient != null) {
             socketClient.close();
         }
+        // The server greets every connection, which triggers the replica's first load
+        replica = new CatalogReplica(service, sessionToken, this::log);
         socketClient = new SocketClient(serverHost, this::log);
+        socketClient.addListener(replica);
+        socketClient.addListener(new EventListener() {
+            @Override
+            public void onNotice(Notice notice) {
+                log(describe(notice));
+            }
+        });
         socketClient.start();
 
         TabPane tabPane = new TabPane();
@@ -125,8 +230,6 @@ public class ClientApp extends Application {
 
         primaryStage.setScene(scene);
         primaryStage.setTitle("Inventory & Billing System - Main Dashboard (" + serverHost + ")");
-
-        refreshTable();
     }
 
     private HBox createHeader() {
@@ -148,6 +251,12 @@ public class ClientApp extends Application {
         if (socketClient != null) {
             socketClient.close();
         }
+        try {
+            service.logout(sessionToken);
+        } catch (Exception e) {
+            System.err.println("Logout failed: " + e.getMessage());
+        }
+        sessionToken = null;
         start(primaryStage); // Re-initialize login screen
     }
 
@@ -171,8 +280,11 @@ public class ClientApp extends Application {
         TableColumn<Product, String> catCol = new TableColumn<>("Category");
         catCol.setCellValueFactory(new PropertyValueFactory<>("category"));
 
-        table.getColumns().addAll(idCol, nameCol, priceCol, qtyCol, catCol);
-        table.setItems(productList);
+        TableColumn<Product, Integer> reorderCol = new TableColumn<>("Reorder At");
+        reorderCol.setCellValueFactory(new PropertyValueFactory<>("reorderLevel"));
+
+        table.getColumns().addAll(idCol, nameCol, priceCol, qtyCol, catCol, reorderCol);
+        table.setItems(replica.getProducts());
 
         // Form
         nameField = new TextField();
@@ -183,6 +295,8 @@ public class ClientApp extends Application {
         qtyField.setPromptText("Quantity");
         catField = new TextField();
         catField.setPromptText("Category");
+        reorderField = new TextField();
+        reorderField.setPromptText("Reorder level (default " + Product.DEFAULT_REORDER_LEVEL + ")");
 
         Button addButton = new Button("Add");
         addButton.setOnAction(e -> addProduct());
@@ -195,12 +309,18 @@ public class ClientApp extends Application {
         deleteButton.setOnAction(e -> deleteProduct());
 
         Button refreshButton = new Button("Refresh");
-        refreshButton.setOnAction(e -> refreshTable());
+        refreshButton.setOnAction(e -> replica.reload());
+
+        Button importButton = new Button("Import CSV");
+        importButton.setOnAction(e -> importProducts());
+
+        Button lowStockButton = new Button("Reorder List");
+        lowStockButton.setOnAction(e -> showLowStock());
 
         FlowPane form = new FlowPane(15, 15);
         form.setPadding(new Insets(20));
-        form.getChildren().addAll(nameField, priceField, qtyField, catField, addButton, updateButton, deleteButton,
-                refreshButton);
+        form.getChildren().addAll(nameField, priceField, qtyField, catField, reorderField, addButton, updateButton,
+                deleteButton, refreshButton, importButton, lowStockButton);
 
         VBox layout = new VBox(15, table, form);
         layout.setPadding(new Insets(20));
@@ -212,6 +332,7 @@ public class ClientApp extends Application {
                 priceField.setText(String.valueOf(newSelection.getPrice()));
                 qtyField.setText(String.valueOf(newSelection.getQuantity()));
                 catField.setText(newSelection.getCategory());
+                reorderField.setText(String.valueOf(newSelection.getReorderLevel()));
             }
         });
 
@@ -223,19 +344,45 @@ public class ClientApp extends Application {
         Tab tab = new Tab("Billing");
         tab.setClosable(false);
 
-        productComboBox = new ComboBox<>(productList);
-        productComboBox.setPromptText("Select Product");
-        productComboBox.setPrefWidth(300);
+        // Type-ahead against the server's search index rather than a list of the whole catalog
+        productSearchField = new TextField();
+        productSearchField.setPromptText("Search product by name, category or ID");
+        productSearchField.setMaxWidth(300);
+        // Search once typing pauses rather than on every keystroke
+        searchDelay = new PauseTransition(Duration.millis(SEARCH_DELAY_MILLIS));
+        searchDelay.setOnFinished(e -> searchProducts(productSearchField.getText()));
+        productSearchField.textProperty().addListener((obs, old, text) -> searchDelay.playFromStart());
+        productSearchField.setOnAction(e -> {
+            productResultsView.getSelectionModel().selectFirst();
+            billQtyField.requestFocus();
+        });
+
+        productResultsView = new ListView<>(productResults);
+        productResultsView.setMaxWidth(300);
+        productResultsView.setPrefHeight(150);
 
         billQtyField = new TextField();
         billQtyField.setPromptText("Quantity");
         billQtyField.setMaxWidth(300);
 
+        Button addToCartButton = new Button("Add to Cart");
+        addToCartButton.setOnAction(e -> addToCart());
+
+        ListView<String> cartView = new ListView<>(cartItems);
+        cartView.setMaxWidth(300);
+        cartView.setPrefHeight(150);
+
+        Button clearCartButton = new Button("Clear Cart");
+        clearCartButton.setOnAction(e -> clearCart());
+
         Button billButton = new Button("Generate Invoice & Sell");
         billButton.setOnAction(e -> processBilling());
 
+        HBox cartButtons = new HBox(10, clearCartButton, billButton);
+        cartButtons.setAlignment(javafx.geometry.Pos.CENTER);
+
         VBox layout = new VBox(10, new Label("Select Product and Enter Quantity:"),
-                productComboBox, billQtyField, billButton);
+                productSearchField, productResultsView, billQtyField, addToCartButton, new Label("Cart:"), cartView, cartButtons);
         layout.setAlignment(javafx.geometry.Pos.CENTER);
         layout.setPadding(new Insets(20));
 
@@ -269,10 +416,73 @@ public class ClientApp extends Application {
         totalSalesLabel = new Label("Total Revenue: $0.00");
         totalSalesLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
 
+        fromDatePicker = new DatePicker();
+        fromDatePicker.setPromptText("From");
+        toDatePicker = new DatePicker();
+        toDatePicker.setPromptText("To (inclusive)");
+
+        groupingComboBox = new ComboBox<>(FXCollections.observableArrayList(ReportGrouping.values()));
+        groupingComboBox.setValue(ReportGrouping.CATEGORY);
+        groupingComboBox.setOnAction(e -> refreshBreakdown());
+
+        HBox filters = new HBox(10, new Label("Range:"), fromDatePicker, toDatePicker,
+                new Label("Group by:"), groupingComboBox);
+        filters.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+
+        TableView<SalesAggregate> breakdownTable = new TableView<>();
+        TableColumn<SalesAggregate, String> keyCol = new TableColumn<>("Group");
+        keyCol.setCellValueFactory(new PropertyValueFactory<>("key"));
+
+        TableColumn<SalesAggregate, Long> unitsCol = new TableColumn<>("Units");
+        unitsCol.setCellValueFactory(new PropertyValueFactory<>("units"));
+
+        TableColumn<SalesAggregate, Double> revenueCol = new TableColumn<>("Revenue");
+        revenueCol.setCellValueFactory(new PropertyValueFactory<>("revenue"));
+
+        TableColumn<SalesAggregate, Long> txCol = new TableColumn<>("Sales");
+        txCol.setCellValueFactory(new PropertyValueFactory<>("transactions"));
+
+        breakdownTable.getColumns().addAll(keyCol, unitsCol, revenueCol, txCol);
+        breakdownTable.setItems(breakdownList);
+        breakdownTable.setPrefHeight(160);
+
+        topWindowComboBox = new ComboBox<>(FXCollections.observableArrayList(SalesWindow.values()));
+        topWindowComboBox.setValue(SalesWindow.LAST_DAY);
+        topWindowComboBox.setOnAction(e -> refreshTopSellers());
+        topMetricComboBox = new ComboBox<>(FXCollections.observableArrayList(TopSellerMetric.values()));
+        topMetricComboBox.setValue(TopSellerMetric.UNITS);
+        topMetricComboBox.setOnAction(e -> refreshTopSellers());
+
+        HBox topFilters = new HBox(10, new Label("Best sellers:"), topWindowComboBox,
+                new Label("By:"), topMetricComboBox);
+        topFilters.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+
+        TableView<TopSeller> topSellersTable = new TableView<>();
+        TableColumn<TopSeller, String> topNameCol = new TableColumn<>("Product");
+        topNameCol.setCellValueFactory(new PropertyValueFactory<>("productName"));
+
+        TableColumn<TopSeller, Double> topValueCol = new TableColumn<>("Units / Revenue");
+        topValueCol.setCellValueFactory(new PropertyValueFactory<>("value"));
+
+        // The ranking comes from a bounded sketch; show how far off a value can be
+        TableColumn<TopSeller, Double> topErrorCol = new TableColumn<>("Max Overcount");
+        topErrorCol.setCellValueFactory(new PropertyValueFactory<>("maxError"));
+
+        topSellersTable.getColumns().addAll(topNameCol, topValueCol, topErrorCol);
+        topSellersTable.setItems(topSellersList);
+        topSellersTable.setPrefHeight(160);
+
         Button refreshReportsBtn = new Button("Refresh Report");
         refreshReportsBtn.setOnAction(e -> refreshReports());
 
-        VBox layout = new VBox(15, salesTable, totalSalesLabel, refreshReportsBtn);
+        loadMoreSalesBtn = new Button("Load More");
+        loadMoreSalesBtn.setDisable(true);
+        loadMoreSalesBtn.setOnAction(e -> loadMoreSales());
+
+        HBox reportButtons = new HBox(10, refreshReportsBtn, loadMoreSalesBtn);
+
+        VBox layout = new VBox(15, filters, totalSalesLabel, breakdownTable, topFilters, topSellersTable, salesTable,
+                reportButtons);
         layout.setPadding(new Insets(20));
 
         tab.setContent(layout);
@@ -287,14 +497,15 @@ public class ClientApp extends Application {
             String cat = catField.getText();
 
             Product p = new Product(name, price, qty, cat);
-            service.addProduct(p);
+            p.setReorderLevel(parseReorderLevel());
+            service.addProduct(sessionToken, p);
             log("Added product: " + name);
-            refreshTable();
 
             nameField.clear();
             priceField.clear();
             qtyField.clear();
             catField.clear();
+            reorderField.clear();
         } catch (Exception e) {
             log("Error adding product: " + e.getMessage());
         }
@@ -313,14 +524,11 @@ public class ClientApp extends Application {
             int qty = Integer.parseInt(qtyField.getText());
             String cat = catField.getText();
 
-            selected.setName(name);
-            selected.setPrice(price);
-            selected.setQuantity(qty);
-            selected.setCategory(cat);
-
-            service.updateProduct(selected);
+            // The table row is replaced when the server's update event arrives
+            Product p = new Product(selected.getId(), name, price, qty, cat);
+            p.setReorderLevel(parseReorderLevel());
+            service.updateProduct(sessionToken, p);
             log("Updated product: " + name);
-            refreshTable();
         } catch (Exception e) {
             log("Error updating product: " + e.getMessage());
         }
@@ -334,77 +542,242 @@ public class ClientApp extends Application {
         }
 
         try {
-            service.deleteProduct(selected.getId());
+            service.deleteProduct(sessionToken, selected.getId());
             log("Deleted product: " + selected.getName());
-            refreshTable();
             nameField.clear();
             priceField.clear();
             qtyField.clear();
             catField.clear();
+            reorderField.clear();
         } catch (Exception e) {
             log("Error deleting product: " + e.getMessage());
         }
     }
 
-    private void refreshTable() {
+    private int parseReorderLevel() {
+        String text = reorderField.getText();
+        return text == null || text.isBlank() ? Product.DEFAULT_REORDER_LEVEL : Integer.parseInt(text.trim());
+    }
+
+    private void showLowStock() {
         try {
-            List<Product> list = service.getAllProducts();
-            productList.setAll(list);
+            List<LowStockItem> items = service.getLowStock(sessionToken, LOW_STOCK_LIMIT);
+            StringBuilder text = new StringBuilder();
+            for (LowStockItem item : items) {
+                text.append("#").append(item.getProductId()).append(" ").append(item).append("\n");
+            }
+            Alert alert = new Alert(Alert.AlertType.INFORMATION,
+                    items.isEmpty() ? "Nothing is below its reorder level." : text.toString());
+            alert.setHeaderText("Reorder List (" + items.size() + " products, most urgent first)");
+            alert.show();
         } catch (Exception e) {
-            log("Error refreshing table: " + e.getMessage());
+            log("Error loading reorder list: " + e.getMessage());
+        }
+    }
+
+    private void importProducts() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Products (id,name,price,quantity,category)");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv", "*.txt"));
+        File file = chooser.showOpenDialog(primaryStage);
+        if (file == null) {
+            return;
         }
+
+        log("Importing " + file.getName() + "...");
+        // Large catalogs take a while; keep the UI responsive
+        Thread worker = new Thread(() -> {
+            try {
+                String csv = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+                ImportResult result = service.importProducts(sessionToken, csv);
+                Platform.runLater(() -> {
+                    log("Imported " + result.getRowsImported() + " of " + result.getRowsRead() + " rows in "
+                            + result.getElapsedMillis() + " ms (" + result.getRowsRejected() + " rejected)");
+                    for (String error : result.getErrors()) {
+                        log("  " + error);
+                    }
+                });
+            } catch (Exception e) {
+                log("Error importing products: " + e.getMessage());
+            }
+        }, "product-import");
+        worker.setDaemon(true);
+        worker.start();
     }
 
     private void refreshReports() {
+        salesList.clear();
+        nextSalesQuery = new SalesQuery(reportFrom(), reportTo(), null, SALES_PAGE_SIZE);
+
         try {
-            List<SaleRecord> list = service.getSalesReport();
-            salesList.setAll(list);
+            // Everything on the tab in one round trip; totals are computed by the server
+            BatchResult batch = service.executeBatch(sessionToken, List.of(
+                    BatchOperation.getSalesPage(nextSalesQuery),
+                    BatchOperation.getSalesSummary(reportFrom(), reportTo()),
+                    BatchOperation.getSalesBreakdown(reportFrom(), reportTo(), groupingComboBox.getValue()),
+                    BatchOperation.getTopSellers(topWindowComboBox.getValue(), topMetricComboBox.getValue(),
+                            TOP_SELLERS_LIMIT)), false);
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.isFailed(i)) {
+                    log("Error refreshing reports: " + batch.getError(i));
+                }
+            }
+            if (!batch.isFailed(0)) {
+                showSalesPage(batch.get(0));
+            }
+            if (!batch.isFailed(1)) {
+                SalesSummary summary = batch.get(1);
+                totalSalesLabel.setText("Total Revenue: $" + String.format("%.2f", summary.getTotalRevenue())
+                        + "  |  Units: " + summary.getTotalUnits()
+                        + "  |  Sales: " + summary.getTransactionCount());
+            }
+            if (!batch.isFailed(2)) {
+                breakdownList.setAll(batch.<List<SalesAggregate>>get(2));
+            }
+            if (!batch.isFailed(3)) {
+                topSellersList.setAll(batch.<List<TopSeller>>get(3));
+            }
+        } catch (Exception e) {
+            log("Error refreshing reports: " + e.getMessage());
+        }
+    }
 
-            double total = list.stream().mapToDouble(SaleRecord::getTotalPrice).sum();
-            totalSalesLabel.setText("Total Revenue: $" + String.format("%.2f", total));
+    private void refreshBreakdown() {
+        try {
+            breakdownList.setAll(service.getSalesBreakdown(sessionToken, reportFrom(), reportTo(), groupingComboBox.getValue()));
         } catch (Exception e) {
             log("Error refreshing reports: " + e.getMessage());
         }
     }
 
-    private void processBilling() {
+    private void refreshTopSellers() {
         try {
-            Product selected = productComboBox.getSelectionModel().getSelectedItem();
+            topSellersList.setAll(service.getTopSellers(sessionToken, topWindowComboBox.getValue(),
+                    topMetricComboBox.getValue(), TOP_SELLERS_LIMIT));
+        } catch (Exception e) {
+            log("Error refreshing best sellers: " + e.getMessage());
+        }
+    }
+
+    private Date reportFrom() {
+        LocalDate from = fromDatePicker.getValue();
+        return from == null ? null : Date.from(from.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private Date reportTo() {
+        // The picker is inclusive; the server range is exclusive
+        LocalDate to = toDatePicker.getValue();
+        return to == null ? null : Date.from(to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private void loadMoreSales() {
+        if (nextSalesQuery == null) {
+            return;
+        }
+        try {
+            showSalesPage(service.getSalesPage(sessionToken, nextSalesQuery));
+        } catch (Exception e) {
+            log("Error refreshing reports: " + e.getMessage());
+        }
+    }
+
+    private void showSalesPage(Page<SaleRecord> page) {
+        salesList.addAll(page.getItems());
+        nextSalesQuery = page.hasMore() ? nextSalesQuery.after(page.getLast()) : null;
+        loadMoreSalesBtn.setDisable(nextSalesQuery == null);
+    }
+
+    private void searchProducts(String query) {
+        int generation = ++searchGeneration;
+        if (query == null || query.isBlank()) {
+            productResults.clear();
+            return;
+        }
+        Task<List<Product>> search = new Task<>() {
+            @Override
+            protected List<Product> call() throws Exception {
+                return service.searchProducts(sessionToken, query, SEARCH_RESULTS_LIMIT);
+            }
+        };
+        search.setOnSucceeded(e -> {
+            if (generation == searchGeneration) {
+                productResults.setAll(search.getValue());
+            }
+        });
+        search.setOnFailed(e -> log("Error searching products: " + search.getException().getMessage()));
+        Thread worker = new Thread(search, "product-search");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void addToCart() {
+        try {
+            Product selected = productResultsView.getSelectionModel().getSelectedItem();
             if (selected == null) {
                 new Alert(Alert.AlertType.WARNING, "Please select a product!").show();
                 return;
             }
 
-            int id = selected.getId();
             int qty = Integer.parseInt(billQtyField.getText());
+            cartLines.add(new CartLine(selected.getId(), qty));
+            cartItems.add(selected.getName() + " x " + qty);
+            billQtyField.clear();
+        } catch (NumberFormatException e) {
+            new Alert(Alert.AlertType.WARNING, "Enter a valid quantity").show();
+        }
+    }
 
-            boolean success = service.processSale(id, qty);
-            if (success) {
-                // Generate Invoice
-                Product p = service.getProduct(id); // Refresh to get latest data
-                generateInvoice(p, qty);
-                log("Sale processed for ID: " + id);
-                refreshTable();
+    private void clearCart() {
+        cartLines.clear();
+        cartItems.clear();
+    }
+
+    private void processBilling() {
+        try {
+            // Selling straight from the selection without using the cart still works
+            if (cartLines.isEmpty()) {
+                addToCart();
+                if (cartLines.isEmpty()) {
+                    return;
+                }
+            }
+
+            CartResult result = service.processCart(sessionToken, new ArrayList<>(cartLines));
+            if (result.isSuccess()) {
+                generateInvoice(result);
+                log("Order #" + result.getOrderId() + " processed (" + result.getLines().size() + " lines)");
+                clearCart();
             } else {
+                StringBuilder reasons = new StringBuilder();
+                for (CartLineResult line : result.getLines()) {
+                    if (!line.isSuccess()) {
+                        String name = line.getProductName() != null ? line.getProductName() : "ID " + line.getProductId();
+                        reasons.append(name).append(": ").append(line.getMessage()).append("\n");
+                    }
+                }
                 log("Sale Failed! Check stock or ID.");
-                new Alert(Alert.AlertType.WARNING, "Sale Failed! Insufficient Stock.").show();
+                new Alert(Alert.AlertType.WARNING, "Sale Failed!\n" + reasons).show();
             }
         } catch (Exception e) {
             log("Error billing: " + e.getMessage());
         }
     }
 
-    private void generateInvoice(Product p, int qty) {
+    private void generateInvoice(CartResult result) {
         String filename = "Invoice_" + System.currentTimeMillis() + ".txt";
         try (FileWriter fw = new FileWriter(filename)) {
             fw.write("INVOICE\n");
+            fw.write("Order: #" + result.getOrderId() + "\n");
             fw.write("Date: " + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + "\n");
             fw.write("--------------------------------\n");
-            fw.write("Product: " + p.getName() + "\n");
-            fw.write("Category: " + p.getCategory() + "\n");
-            fw.write("Unit Price: $" + p.getPrice() + "\n");
-            fw.write("Quantity: " + qty + "\n");
-            fw.write("Total: $" + (p.getPrice() * qty) + "\n");
+            for (CartLineResult line : result.getLines()) {
+                fw.write("Product: " + line.getProductName() + "\n");
+                fw.write("Unit Price: $" + line.getUnitPrice() + "\n");
+                fw.write("Quantity: " + line.getQuantity() + "\n");
+                fw.write("Line Total: $" + line.getLineTotal() + "\n");
+                fw.write("--------------------------------\n");
+            }
+            fw.write("Total: $" + result.getTotalPrice() + "\n");
             fw.write("--------------------------------\n");
             fw.write("Thank you for your business!");
 
@@ -415,6 +788,16 @@ public class ClientApp extends Application {
         }
     }
 
+    // Stock alerts arrive as numbers; name the product from the local catalog copy
+    private String describe(Notice notice) {
+        Product p = notice.getKind() == Notice.Kind.LOW_STOCK ? replica.getProduct(notice.getProductId()) : null;
+        if (p == null) {
+            return notice.getText();
+        }
+        return "ALERT: Low stock for " + new LowStockItem(p.getId(), p.getName(), p.getCategory(),
+                notice.getQuantity(), p.getReorderLevel());
+    }
+
     private void log(String msg) {
         Platform.runLater(() -> logArea.appendText(msg + "\n"));
     }
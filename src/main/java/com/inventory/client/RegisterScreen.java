@@ -9,14 +9,15 @@ import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import java.util.function.Consumer;
 import javafx.stage.Stage;
 
 public class RegisterScreen {
     private com.inventory.common.InventoryService service;
     private Stage primaryStage;
-    private Runnable onLoginSuccess;
+    private Consumer<User> onLoginSuccess;
 
-    public RegisterScreen(com.inventory.common.InventoryService service, Stage primaryStage, Runnable onLoginSuccess) {
+    public RegisterScreen(com.inventory.common.InventoryService service, Stage primaryStage, Consumer<User> onLoginSuccess) {
         this.service = service;
         this.primaryStage = primaryStage;
         this.onLoginSuccess = onLoginSuccess;
@@ -1,48 +1,140 @@
 package com.inventory.client;
 
+import com.inventory.common.CatalogEvent;
+import com.inventory.common.EventCodec;
+import com.inventory.common.EventListener;
+import com.inventory.common.Notice;
 import java.io.*;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 import javafx.application.Platform;
 
+/**
+ * Reads EventCodec frames from the server's notification socket and hands each
+ * decoded event to the registered listeners on the JavaFX thread.
+ *
+ * Frames that have already arrived are decoded together and delivered in one
+ * hop to the JavaFX thread, so a burst of events costs one UI task instead of
+ * one per event.
+ *
+ * A lost connection (including the server evicting a lagging client) is retried
+ * with exponential backoff until close() is called. The server greets every new
+ * connection with HELLO, which makes the catalog replica catch up on whatever
+ * it missed.
+ */
 public class SocketClient {
     private final String host;
     private static final int PORT = 9090;
-    private final Consumer<String> onMessageReceived;
-    private Socket socket;
+    private static final int MAX_BATCH = 256;
+    private static final long MIN_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private final Consumer<String> onConnectionError;
+    private final List<EventListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Socket socket;
     private volatile boolean running = true;
+    private Thread reader;
 
-    public SocketClient(String host, Consumer<String> onMessageReceived) {
+    public SocketClient(String host, Consumer<String> onConnectionError) {
         this.host = host;
-        this.onMessageReceived = onMessageReceived;
+        this.onConnectionError = onConnectionError;
+    }
+
+    public void addListener(EventListener listener) {
+        listeners.add(listener);
     }
 
     public void start() {
-        new Thread(() -> {
-            try {
-                socket = new Socket(host, PORT);
-                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        reader = new Thread(() -> {
+            long backoff = MIN_BACKOFF_MILLIS;
+            while (running) {
+                String error;
+                boolean received;
+                try {
+                    received = readUntilClosed();
+                    error = "Connection closed by server";
+                } catch (IOException e) {
+                    received = false;
+                    error = "Connection Error: " + e.getMessage();
+                } finally {
+                    closeSocket();
+                }
+                if (!running) {
+                    return;
+                }
+                if (received) {
+                    backoff = MIN_BACKOFF_MILLIS; // it was working; retry promptly
+                }
+                String message = error + ", reconnecting in " + backoff / 1000 + " s";
+                Platform.runLater(() -> onConnectionError.accept(message));
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }, "socket-client");
+        reader.setDaemon(true);
+        reader.start();
+    }
 
-                String line;
-                while (running && (line = in.readLine()) != null) {
-                    final String msg = line;
-                    Platform.runLater(() -> onMessageReceived.accept(msg));
+    // Connect and deliver events until the stream ends; true if anything arrived
+    private boolean readUntilClosed() throws IOException {
+        socket = new Socket(host, PORT);
+        if (!running) {
+            return false;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+        List<Runnable> batch = new ArrayList<>();
+        EventListener collector = new EventListener() {
+            @Override
+            public void onCatalogEvent(CatalogEvent event) {
+                batch.add(() -> listeners.forEach(l -> l.onCatalogEvent(event)));
+            }
+
+            @Override
+            public void onNotice(Notice notice) {
+                batch.add(() -> listeners.forEach(l -> l.onNotice(notice)));
+            }
+        };
+        boolean received = false;
+        try {
+            while (running) {
+                // Block for one frame, then take whatever else is already buffered
+                EventCodec.read(in, collector);
+                while (in.available() > 0 && batch.size() < MAX_BATCH) {
+                    EventCodec.read(in, collector);
                 }
-            } catch (IOException e) {
-                if (running) {
-                    Platform.runLater(() -> onMessageReceived.accept("Connection Error: " + e.getMessage()));
+                received = true;
+                if (!batch.isEmpty()) {
+                    List<Runnable> tasks = new ArrayList<>(batch);
+                    batch.clear();
+                    Platform.runLater(() -> tasks.forEach(Runnable::run));
                 }
-            } finally {
-                close();
             }
-        }).start();
+        } catch (EOFException e) {
+            // server closed the connection
+        }
+        return received;
     }
 
     public void close() {
         running = false;
-        if (socket != null && !socket.isClosed()) {
+        if (reader != null) {
+            reader.interrupt();
+        }
+        closeSocket();
+    }
+
+    private void closeSocket() {
+        Socket s = socket;
+        if (s != null && !s.isClosed()) {
             try {
-                socket.close();
+                s.close();
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -0,0 +1,201 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * One call inside an InventoryService batch. Each operation mirrors the
+ * service method of the same name and only the fields that method takes are
+ * set; its result in the BatchResult is what that method would return (null
+ * for methods returning void).
+ */
+public class BatchOperation implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        GET_PRODUCT,
+        GET_ALL_PRODUCTS,
+        GET_PRODUCTS_PAGE,
+        SEARCH_PRODUCTS,
+        GET_LOW_STOCK,
+        GET_SALES_PAGE,
+        GET_SALES_SUMMARY,
+        GET_SALES_BREAKDOWN,
+        GET_TOP_SELLERS,
+        ADD_PRODUCT,
+        UPDATE_PRODUCT,
+        DELETE_PRODUCT,
+        PROCESS_SALE,
+        PROCESS_CART;
+
+        public boolean isSale() {
+            return this == PROCESS_SALE || this == PROCESS_CART;
+        }
+
+        public boolean isProductChange() {
+            return this == ADD_PRODUCT || this == UPDATE_PRODUCT || this == DELETE_PRODUCT;
+        }
+    }
+
+    private Type type;
+    private Product product;
+    private int productId;
+    private int quantity;
+    private int limit;
+    private String text; // search query or category
+    private List<CartLine> lines;
+    private SalesQuery salesQuery;
+    private Date from;
+    private Date to;
+    private ReportGrouping grouping;
+    private SalesWindow window;
+    private TopSellerMetric metric;
+
+    private BatchOperation(Type type) {
+        this.type = type;
+    }
+
+    public static BatchOperation getProduct(int productId) {
+        BatchOperation op = new BatchOperation(Type.GET_PRODUCT);
+        op.productId = productId;
+        return op;
+    }
+
+    public static BatchOperation getAllProducts() {
+        return new BatchOperation(Type.GET_ALL_PRODUCTS);
+    }
+
+    public static BatchOperation getProductsPage(int afterId, int pageSize, String category) {
+        BatchOperation op = new BatchOperation(Type.GET_PRODUCTS_PAGE);
+        op.productId = afterId;
+        op.limit = pageSize;
+        op.text = category;
+        return op;
+    }
+
+    public static BatchOperation searchProducts(String query, int limit) {
+        BatchOperation op = new BatchOperation(Type.SEARCH_PRODUCTS);
+        op.text = query;
+        op.limit = limit;
+        return op;
+    }
+
+    public static BatchOperation getLowStock(int limit) {
+        BatchOperation op = new BatchOperation(Type.GET_LOW_STOCK);
+        op.limit = limit;
+        return op;
+    }
+
+    public static BatchOperation getSalesPage(SalesQuery query) {
+        BatchOperation op = new BatchOperation(Type.GET_SALES_PAGE);
+        op.salesQuery = query;
+        return op;
+    }
+
+    public static BatchOperation getSalesSummary(Date from, Date to) {
+        BatchOperation op = new BatchOperation(Type.GET_SALES_SUMMARY);
+        op.from = from;
+        op.to = to;
+        return op;
+    }
+
+    public static BatchOperation getSalesBreakdown(Date from, Date to, ReportGrouping grouping) {
+        BatchOperation op = new BatchOperation(Type.GET_SALES_BREAKDOWN);
+        op.from = from;
+        op.to = to;
+        op.grouping = grouping;
+        return op;
+    }
+
+    public static BatchOperation getTopSellers(SalesWindow window, TopSellerMetric metric, int limit) {
+        BatchOperation op = new BatchOperation(Type.GET_TOP_SELLERS);
+        op.window = window;
+        op.metric = metric;
+        op.limit = limit;
+        return op;
+    }
+
+    public static BatchOperation addProduct(Product product) {
+        BatchOperation op = new BatchOperation(Type.ADD_PRODUCT);
+        op.product = product;
+        return op;
+    }
+
+    public static BatchOperation updateProduct(Product product) {
+        BatchOperation op = new BatchOperation(Type.UPDATE_PRODUCT);
+        op.product = product;
+        return op;
+    }
+
+    public static BatchOperation deleteProduct(int productId) {
+        BatchOperation op = new BatchOperation(Type.DELETE_PRODUCT);
+        op.productId = productId;
+        return op;
+    }
+
+    public static BatchOperation processSale(int productId, int quantity) {
+        BatchOperation op = new BatchOperation(Type.PROCESS_SALE);
+        op.productId = productId;
+        op.quantity = quantity;
+        return op;
+    }
+
+    public static BatchOperation processCart(List<CartLine> lines) {
+        BatchOperation op = new BatchOperation(Type.PROCESS_CART);
+        op.lines = lines;
+        return op;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<CartLine> getLines() {
+        return lines;
+    }
+
+    public SalesQuery getSalesQuery() {
+        return salesQuery;
+    }
+
+    public Date getFrom() {
+        return from;
+    }
+
+    public Date getTo() {
+        return to;
+    }
+
+    public ReportGrouping getGrouping() {
+        return grouping;
+    }
+
+    public SalesWindow getWindow() {
+        return window;
+    }
+
+    public TopSellerMetric getMetric() {
+        return metric;
+    }
+}
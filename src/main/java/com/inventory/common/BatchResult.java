@@ -0,0 +1,48 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Results of a batch, one slot per operation in the order they were sent. A
+ * slot holds either the operation's result or, if it failed or was not run,
+ * an error message.
+ */
+public class BatchResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private boolean success;
+    private List<Object> results;
+    private List<String> errors;
+
+    public BatchResult(boolean success, List<Object> results, List<String> errors) {
+        this.success = success;
+        this.results = results;
+        this.errors = errors;
+    }
+
+    /**
+     * True if every operation ran without error. In an atomic batch this also
+     * means every sale went through.
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(int index) {
+        return (T) results.get(index);
+    }
+
+    public boolean isFailed(int index) {
+        return errors.get(index) != null;
+    }
+
+    public String getError(int index) {
+        return errors.get(index);
+    }
+}
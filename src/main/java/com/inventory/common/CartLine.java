@@ -0,0 +1,23 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+
+public class CartLine implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int productId;
+    private int quantity;
+
+    public CartLine(int productId, int quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+}
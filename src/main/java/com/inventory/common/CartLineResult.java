@@ -0,0 +1,58 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+
+public class CartLineResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int productId;
+    private String productName;
+    private int quantity;
+    private double unitPrice;
+    private int remainingStock;
+    private boolean success;
+    private String message;
+
+    public CartLineResult(int productId, String productName, int quantity, double unitPrice,
+            int remainingStock, boolean success, String message) {
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.remainingStock = remainingStock;
+        this.success = success;
+        this.message = message;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public double getLineTotal() {
+        return unitPrice * quantity;
+    }
+
+    public int getRemainingStock() {
+        return remainingStock;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,42 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Outcome of a cart checkout. A cart is all-or-nothing: either every line
+ * was sold under one order id, or nothing was and the line results say why.
+ */
+public class CartResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int orderId;
+    private boolean success;
+    private List<CartLineResult> lines;
+
+    public CartResult(int orderId, boolean success, List<CartLineResult> lines) {
+        this.orderId = orderId;
+        this.success = success;
+        this.lines = lines;
+    }
+
+    public int getOrderId() {
+        return orderId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public List<CartLineResult> getLines() {
+        return lines;
+    }
+
+    public double getTotalPrice() {
+        return lines.stream().mapToDouble(CartLineResult::getLineTotal).sum();
+    }
+
+    public int getTotalUnits() {
+        return lines.stream().mapToInt(CartLineResult::getQuantity).sum();
+    }
+}
@@ -0,0 +1,159 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+
+/**
+ * Structured catalog change pushed to clients over the notification socket
+ * (see EventCodec for the wire format).
+ *
+ * Events carry absolute values (full product, or the new stock level), so a
+ * client that applies them in sequence order converges on the server state.
+ * The sequence number is assigned by the server when the event is sent; a
+ * client that sees a gap must resync its copy of the catalog.
+ */
+public class CatalogEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Sent on the wire by ordinal: add new types at the end only
+    public enum Type {
+        HELLO,          // sent on connect; seq is the last sequence number already sent
+        PRODUCT_ADDED,
+        PRODUCT_UPDATED,
+        PRODUCT_DELETED,
+        STOCK_CHANGED,
+        CATALOG_RELOADED // bulk change; clients should resync
+    }
+
+    private Type type;
+    private long seq;
+    private int productId;
+    private String name;
+    private double price;
+    private int quantity;
+    private String category;
+    private int reorderLevel;
+    private long timestamp;
+
+    private CatalogEvent(Type type, int productId) {
+        this.type = type;
+        this.productId = productId;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Event as read off the wire; only EventCodec should need this
+     */
+    static CatalogEvent decoded(Type type, long seq, int productId, int quantity, double price, long timestamp,
+            String name, String category, int reorderLevel) {
+        CatalogEvent e = new CatalogEvent(type, productId);
+        e.seq = seq;
+        e.quantity = quantity;
+        e.price = price;
+        e.timestamp = timestamp;
+        e.name = name;
+        e.category = category;
+        e.reorderLevel = reorderLevel;
+        return e;
+    }
+
+    public static CatalogEvent hello(long seq) {
+        CatalogEvent e = new CatalogEvent(Type.HELLO, 0);
+        e.seq = seq;
+        return e;
+    }
+
+    public static CatalogEvent productAdded(Product p) {
+        return withProduct(Type.PRODUCT_ADDED, p);
+    }
+
+    public static CatalogEvent productUpdated(Product p) {
+        return withProduct(Type.PRODUCT_UPDATED, p);
+    }
+
+    public static CatalogEvent productDeleted(int productId) {
+        return new CatalogEvent(Type.PRODUCT_DELETED, productId);
+    }
+
+    public static CatalogEvent stockChanged(int productId, int newStock) {
+        CatalogEvent e = new CatalogEvent(Type.STOCK_CHANGED, productId);
+        e.quantity = newStock;
+        return e;
+    }
+
+    public static CatalogEvent catalogReloaded() {
+        return new CatalogEvent(Type.CATALOG_RELOADED, 0);
+    }
+
+    private static CatalogEvent withProduct(Type type, Product p) {
+        CatalogEvent e = new CatalogEvent(type, p.getId());
+        e.name = p.getName();
+        e.price = p.getPrice();
+        e.quantity = p.getQuantity();
+        e.category = p.getCategory();
+        e.reorderLevel = p.getReorderLevel();
+        return e;
+    }
+
+    /**
+     * Copy of this event stamped with its sequence number
+     */
+    public CatalogEvent withSeq(long seq) {
+        CatalogEvent e = new CatalogEvent(type, productId);
+        e.seq = seq;
+        e.name = name;
+        e.price = price;
+        e.quantity = quantity;
+        e.category = category;
+        e.reorderLevel = reorderLevel;
+        e.timestamp = timestamp;
+        return e;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public int getReorderLevel() {
+        return reorderLevel;
+    }
+
+    // When the server produced the event, in epoch millis
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    // Whether the event carries a full product (name, category, reorder level)
+    public boolean hasProduct() {
+        return type == Type.PRODUCT_ADDED || type == Type.PRODUCT_UPDATED;
+    }
+
+    public Product toProduct() {
+        Product p = new Product(productId, name, price, quantity, category);
+        p.setReorderLevel(reorderLevel);
+        return p;
+    }
+}
@@ -0,0 +1,149 @@
+package com.inventory.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Binary framing for the notification socket.
+ *
+ * A frame is a 4-byte length followed by that many bytes: format version,
+ * frame kind (catalog event or notice), the event type's ordinal, then the
+ * fields. Every event carries its numbers in fixed-size fields; only product
+ * events and notices add strings. A reader skips any frame whose version or
+ * type it does not know, so new event types can be rolled out before every
+ * client is upgraded.
+ *
+ * Catalog event: seq, product id, quantity, price, timestamp, and for product
+ * events name, category and reorder level. Notice: product id, quantity,
+ * amount, timestamp, detail (the text of a system notice, the seller of a sale
+ * or order, absent for a stock alert).
+ */
+public final class EventCodec {
+    public static final byte VERSION = 1;
+    public static final int MAX_FRAME_SIZE = 64 * 1024;
+
+    private static final byte CATALOG_EVENT = 1;
+    private static final byte NOTICE = 2;
+
+    private EventCodec() {
+    }
+
+    public static byte[] encode(CatalogEvent e) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = startFrame(bytes, CATALOG_EVENT, e.getType().ordinal());
+            out.writeLong(e.getSeq());
+            out.writeInt(e.getProductId());
+            out.writeInt(e.getQuantity());
+            out.writeDouble(e.getPrice());
+            out.writeLong(e.getTimestamp());
+            if (e.hasProduct()) {
+                writeString(out, e.getName());
+                writeString(out, e.getCategory());
+                out.writeInt(e.getReorderLevel());
+            }
+            return finishFrame(bytes);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex); // in-memory stream
+        }
+    }
+
+    public static byte[] encode(Notice n) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = startFrame(bytes, NOTICE, n.getKind().ordinal());
+            out.writeInt(n.getProductId());
+            out.writeInt(n.getQuantity());
+            out.writeDouble(n.getAmount());
+            out.writeLong(n.getTimestamp());
+            writeString(out, n.getDetail());
+            return finishFrame(bytes);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Read one frame and hand it to the listener. Frames this version cannot read
+     * are skipped. Throws EOFException at the end of the stream.
+     */
+    public static void read(DataInputStream in, EventListener listener) throws IOException {
+        int length = in.readInt();
+        if (length < 3 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Bad event frame length " + length);
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        DataInputStream body = new DataInputStream(new ByteArrayInputStream(frame));
+        byte version = body.readByte();
+        byte kind = body.readByte();
+        int type = body.readUnsignedByte();
+        if (version != VERSION) {
+            return;
+        }
+        if (kind == CATALOG_EVENT && type < CatalogEvent.Type.values().length) {
+            listener.onCatalogEvent(readCatalogEvent(body, CatalogEvent.Type.values()[type]));
+        } else if (kind == NOTICE && type < Notice.Kind.values().length) {
+            listener.onNotice(readNotice(body, Notice.Kind.values()[type]));
+        }
+    }
+
+    private static CatalogEvent readCatalogEvent(DataInputStream in, CatalogEvent.Type type) throws IOException {
+        long seq = in.readLong();
+        int productId = in.readInt();
+        int quantity = in.readInt();
+        double price = in.readDouble();
+        long timestamp = in.readLong();
+        String name = null;
+        String category = null;
+        int reorderLevel = 0;
+        if (type == CatalogEvent.Type.PRODUCT_ADDED || type == CatalogEvent.Type.PRODUCT_UPDATED) {
+            name = readString(in);
+            category = readString(in);
+            reorderLevel = in.readInt();
+        }
+        return CatalogEvent.decoded(type, seq, productId, quantity, price, timestamp, name, category, reorderLevel);
+    }
+
+    private static Notice readNotice(DataInputStream in, Notice.Kind kind) throws IOException {
+        int productId = in.readInt();
+        int quantity = in.readInt();
+        double amount = in.readDouble();
+        long timestamp = in.readLong();
+        return new Notice(kind, productId, quantity, amount, timestamp, readString(in));
+    }
+
+    private static DataOutputStream startFrame(ByteArrayOutputStream bytes, byte kind, int type) throws IOException {
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0); // length, patched in finishFrame
+        out.writeByte(VERSION);
+        out.writeByte(kind);
+        out.writeByte(type);
+        return out;
+    }
+
+    private static byte[] finishFrame(ByteArrayOutputStream bytes) {
+        byte[] frame = bytes.toByteArray();
+        int length = frame.length - 4;
+        frame[0] = (byte) (length >>> 24);
+        frame[1] = (byte) (length >>> 16);
+        frame[2] = (byte) (length >>> 8);
+        frame[3] = (byte) length;
+        return frame;
+    }
+
+    // null is a lone false flag
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
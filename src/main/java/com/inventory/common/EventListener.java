@@ -0,0 +1,13 @@
+package com.inventory.common;
+
+/**
+ * Receives events decoded from the notification socket; implement the methods
+ * for the events of interest
+ */
+public interface EventListener {
+    default void onCatalogEvent(CatalogEvent event) {
+    }
+
+    default void onNotice(Notice notice) {
+    }
+}
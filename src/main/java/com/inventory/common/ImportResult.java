@@ -0,0 +1,45 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+import java.util.List;
+
+public class ImportResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int rowsRead;
+    private int rowsImported;
+    private int rowsRejected;
+    private List<String> errors;
+    private long elapsedMillis;
+
+    public ImportResult(int rowsRead, int rowsImported, int rowsRejected, List<String> errors, long elapsedMillis) {
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.rowsRejected = rowsRejected;
+        this.errors = errors;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getRowsRead() {
+        return rowsRead;
+    }
+
+    public int getRowsImported() {
+        return rowsImported;
+    }
+
+    public int getRowsRejected() {
+        return rowsRejected;
+    }
+
+    /**
+     * First few rejected rows with the reason, not necessarily all of them
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
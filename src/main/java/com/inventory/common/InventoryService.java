@@ -2,28 +2,63 @@ package com.inventory.common;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.Date;
 import java.util.List;
 
 public interface InventoryService extends Remote {
-    // Product Management
-    void addProduct(Product product) throws RemoteException;
+    // Product Management: changes and imports need the MANAGER role, sales a role that can sell
+    void addProduct(String sessionToken, Product product) throws RemoteException;
 
-    void updateProduct(Product product) throws RemoteException;
+    void updateProduct(String sessionToken, Product product) throws RemoteException;
 
-    void deleteProduct(int productId) throws RemoteException;
+    void deleteProduct(String sessionToken, int productId) throws RemoteException;
 
-    List<Product> getAllProducts() throws RemoteException;
+    List<Product> getAllProducts(String sessionToken) throws RemoteException;
 
-    Product getProduct(int productId) throws RemoteException;
+    Product getProduct(String sessionToken, int productId) throws RemoteException;
+
+    // Bulk import of CSV text (id,name,price,quantity,category; id may be empty)
+    ImportResult importProducts(String sessionToken, String csv) throws RemoteException;
+
+    // Type-ahead search: products whose name or category words start with every word of the query, best first
+    List<Product> searchProducts(String sessionToken, String query, int limit) throws RemoteException;
+
+    // Keyset pagination: pass the id of the last product seen (0 for the first page)
+    Page<Product> getProductsPage(String sessionToken, int afterId, int pageSize, String category) throws RemoteException;
+
+    // Delta sync: changes after the given catalog version (0 for everything); keep the returned version
+    ProductChanges getProductsChangedSince(String sessionToken, long version, int maxRows) throws RemoteException;
+
+    // Products below their reorder level, most urgent (lowest stock-to-reorder-level ratio) first
+    List<LowStockItem> getLowStock(String sessionToken, int limit) throws RemoteException;
 
     // Billing / Transaction
-    boolean processSale(int productId, int quantity) throws RemoteException;
+    boolean processSale(String sessionToken, int productId, int quantity) throws RemoteException;
+
+    CartResult processCart(String sessionToken, List<CartLine> lines) throws RemoteException;
 
-    List<SaleRecord> getSalesReport() throws RemoteException;
+    List<SaleRecord> getSalesReport(String sessionToken) throws RemoteException;
 
-    // Authentication
+    Page<SaleRecord> getSalesPage(String sessionToken, SalesQuery query) throws RemoteException;
+
+    // Aggregated reporting; from/to may be null for an open range
+    SalesSummary getSalesSummary(String sessionToken, Date from, Date to) throws RemoteException;
+
+    List<SalesAggregate> getSalesBreakdown(String sessionToken, Date from, Date to, ReportGrouping grouping) throws RemoteException;
+
+    // Approximate best sellers over a sliding window, from sales since the server started
+    List<TopSeller> getTopSellers(String sessionToken, SalesWindow window, TopSellerMetric metric, int limit)
+            throws RemoteException;
+
+    // Several calls in one round trip, run in order. In an atomic batch the sales are sold together as one
+    // cart (all or nothing), the batch stops at the first failure, and product changes are refused.
+    BatchResult executeBatch(String sessionToken, List<BatchOperation> operations, boolean atomic) throws RemoteException;
+
+    // Authentication; login returns the user with a session token that every other call needs
     User login(String username, String password) throws RemoteException;
 
+    void logout(String sessionToken) throws RemoteException;
+
     boolean registerUser(User user) throws RemoteException;
 
     boolean checkUserExists(String username, String email) throws RemoteException;
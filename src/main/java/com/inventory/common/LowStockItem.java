@@ -0,0 +1,60 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+
+/**
+ * A product whose stock is below its reorder level
+ */
+public class LowStockItem implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int productId;
+    private String name;
+    private String category;
+    private int quantity;
+    private int reorderLevel;
+
+    public LowStockItem(int productId, String name, String category, int quantity, int reorderLevel) {
+        this.productId = productId;
+        this.name = name;
+        this.category = category;
+        this.quantity = quantity;
+        this.reorderLevel = reorderLevel;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public int getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public boolean isLow() {
+        return quantity < reorderLevel;
+    }
+
+    /**
+     * Stock as a fraction of the reorder level; the lower, the more urgent
+     */
+    public double getStockRatio() {
+        return (double) quantity / Math.max(1, reorderLevel);
+    }
+
+    @Override
+    public String toString() {
+        return name + " (Qty: " + quantity + ", reorder at " + reorderLevel + ")";
+    }
+}
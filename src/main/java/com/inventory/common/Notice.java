@@ -0,0 +1,101 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+
+/**
+ * Notification pushed to clients alongside catalog events: sales, orders, stock
+ * alerts and system messages. Unlike catalog events, notices are not sequenced
+ * and a lagging client may miss some. Only system notices carry their text;
+ * the others carry numbers (and who sold, for sales and orders) and are worded
+ * where they are shown, which keeps their frames small.
+ */
+public class Notice implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Sent on the wire by ordinal: add new kinds at the end only
+    public enum Kind {
+        SYSTEM,
+        SALE,      // productId, quantity sold, amount charged
+        ORDER,     // productId is the order id; quantity is units, amount the order total
+        LOW_STOCK  // productId, quantity is the stock left
+    }
+
+    private Kind kind;
+    private int productId;
+    private int quantity;
+    private double amount;
+    private long timestamp;
+    // SYSTEM: the message; SALE, ORDER: who sold, null for merged sales; LOW_STOCK: null
+    private String detail;
+
+    public Notice(Kind kind, int productId, int quantity, double amount, long timestamp, String detail) {
+        this.kind = kind;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.amount = amount;
+        this.timestamp = timestamp;
+        this.detail = detail;
+    }
+
+    public static Notice system(String text) {
+        return new Notice(Kind.SYSTEM, 0, 0, 0, System.currentTimeMillis(), text);
+    }
+
+    public static Notice sale(int productId, int quantity, double amount, String username) {
+        return new Notice(Kind.SALE, productId, quantity, amount, System.currentTimeMillis(), username);
+    }
+
+    public static Notice order(int orderId, int units, double total, String username) {
+        return new Notice(Kind.ORDER, orderId, units, total, System.currentTimeMillis(), username);
+    }
+
+    public static Notice lowStock(LowStockItem item) {
+        return new Notice(Kind.LOW_STOCK, item.getProductId(), item.getQuantity(), 0, System.currentTimeMillis(), null);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * The notice worded for display, naming products by id
+     */
+    public String getText() {
+        String by = detail != null ? " sold by " + detail : "";
+        switch (kind) {
+            case SALE:
+                return "Sale: " + quantity + " units of item " + productId + by + ".";
+            case ORDER:
+                return "Sale: order #" + productId + " - " + quantity + " units" + by + ".";
+            case LOW_STOCK:
+                return "ALERT: Low stock for item " + productId + " (Qty: " + quantity + ")";
+            default:
+                return detail;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getText();
+    }
+}
@@ -0,0 +1,32 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. The caller builds the next request
+ * from the last item of this page rather than from an offset.
+ */
+public class Page<T extends Serializable> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<T> items;
+    private boolean hasMore;
+
+    public Page(List<T> items, boolean hasMore) {
+        this.items = items;
+        this.hasMore = hasMore;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public T getLast() {
+        return items.isEmpty() ? null : items.get(items.size() - 1);
+    }
+}
@@ -0,0 +1,14 @@
+package com.inventory.common;
+
+import java.rmi.RemoteException;
+
+/**
+ * Thrown by InventoryService calls the session's user is not allowed to make.
+ */
+public class PermissionDeniedException extends RemoteException {
+    private static final long serialVersionUID = 1L;
+
+    public PermissionDeniedException(User user, String action) {
+        super("User " + user.getUsername() + " (" + user.getRole() + ") is not allowed to " + action);
+    }
+}
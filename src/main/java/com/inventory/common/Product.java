@@ -4,12 +4,14 @@ import java.io.Serializable;
 
 public class Product implements Serializable {
     private static final long serialVersionUID = 1L;
+    public static final int DEFAULT_REORDER_LEVEL = 5;
     
     private int id;
     private String name;
     private double price;
     private int quantity;
     private String category;
+    private int reorderLevel = DEFAULT_REORDER_LEVEL; // stock below this needs reordering
 
     public Product(int id, String name, double price, int quantity, String category) {
         this.id = id;
@@ -41,6 +43,27 @@ public class Product implements Serializable {
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
 
+    public int getReorderLevel() { return reorderLevel; }
+    public void setReorderLevel(int reorderLevel) { this.reorderLevel = reorderLevel; }
+
+    /**
+     * Copy of this product with a different stock level
+     */
+    public Product withQuantity(int quantity) {
+        Product p = new Product(id, name, price, quantity, category);
+        p.reorderLevel = reorderLevel;
+        return p;
+    }
+
+    /**
+     * Copy of this product with a different id
+     */
+    public Product withId(int id) {
+        Product p = withQuantity(quantity);
+        p.id = id;
+        return p;
+    }
+
     @Override
     public String toString() {
         return name + " ($" + price + ") - Stock: " + quantity;
@@ -0,0 +1,43 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Products changed after a given catalog version. Apply deletions first, then
+ * the changed products, and pass getVersion() to the next call. When hasMore()
+ * is true the caller should ask again straight away. The last page's version
+ * can be lower than versions already returned, so the next call may return
+ * recent changes again; applying them twice is harmless.
+ */
+public class ProductChanges implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<Product> changed;
+    private List<Integer> deletedIds;
+    private long version;
+    private boolean hasMore;
+
+    public ProductChanges(List<Product> changed, List<Integer> deletedIds, long version, boolean hasMore) {
+        this.changed = changed;
+        this.deletedIds = deletedIds;
+        this.version = version;
+        this.hasMore = hasMore;
+    }
+
+    public List<Product> getChanged() {
+        return changed;
+    }
+
+    public List<Integer> getDeletedIds() {
+        return deletedIds;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
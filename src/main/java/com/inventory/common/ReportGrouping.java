@@ -0,0 +1,8 @@
+package com.inventory.common;
+
+public enum ReportGrouping {
+    PRODUCT,
+    CATEGORY,
+    DAY,
+    HOUR
+}
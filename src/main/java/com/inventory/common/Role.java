@@ -0,0 +1,31 @@
+package com.inventory.common;
+
+/**
+ * What a user may do. Every role can browse the catalog and reports; the
+ * server checks the role of the session's user before each write.
+ */
+public enum Role {
+    VIEWER,
+    CASHIER,
+    MANAGER;
+
+    public boolean canSell() {
+        return this != VIEWER;
+    }
+
+    public boolean canEditCatalog() {
+        return this == MANAGER;
+    }
+
+    /**
+     * The role stored under the name, or VIEWER for one this version does not know
+     */
+    public static Role fromName(String name) {
+        for (Role role : values()) {
+            if (role.name().equals(name)) {
+                return role;
+            }
+        }
+        return VIEWER;
+    }
+}
@@ -0,0 +1,39 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+
+/**
+ * One row of a grouped sales report. The key is the product name, category,
+ * day (yyyy-MM-dd) or hour (yyyy-MM-dd HH:00) depending on the grouping.
+ */
+public class SalesAggregate implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String key;
+    private long units;
+    private double revenue;
+    private long transactions;
+
+    public SalesAggregate(String key, long units, double revenue, long transactions) {
+        this.key = key;
+        this.units = units;
+        this.revenue = revenue;
+        this.transactions = transactions;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public long getTransactions() {
+        return transactions;
+    }
+}
@@ -0,0 +1,62 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Filter and keyset cursor for paging through sales, newest first.
+ * All filters are optional (null); the cursor is unset on the first page.
+ */
+public class SalesQuery implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Date from;
+    private Date to;
+    private String category;
+    private int pageSize;
+
+    // Keyset cursor: only sales strictly older than (beforeDate, beforeId)
+    private Date beforeDate;
+    private int beforeId;
+
+    public SalesQuery(Date from, Date to, String category, int pageSize) {
+        this.from = from;
+        this.to = to;
+        this.category = category;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Query for the page following the one that ended with the given sale
+     */
+    public SalesQuery after(SaleRecord last) {
+        SalesQuery next = new SalesQuery(from, to, category, pageSize);
+        next.beforeDate = last.getSaleDate();
+        next.beforeId = last.getId();
+        return next;
+    }
+
+    public Date getFrom() {
+        return from;
+    }
+
+    public Date getTo() {
+        return to;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public Date getBeforeDate() {
+        return beforeDate;
+    }
+
+    public int getBeforeId() {
+        return beforeId;
+    }
+}
@@ -0,0 +1,29 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+
+public class SalesSummary implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private double totalRevenue;
+    private long totalUnits;
+    private long transactionCount;
+
+    public SalesSummary(double totalRevenue, long totalUnits, long transactionCount) {
+        this.totalRevenue = totalRevenue;
+        this.totalUnits = totalUnits;
+        this.transactionCount = transactionCount;
+    }
+
+    public double getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public long getTotalUnits() {
+        return totalUnits;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+}
@@ -0,0 +1,10 @@
+package com.inventory.common;
+
+/**
+ * Sliding windows the server keeps best-seller rankings for
+ */
+public enum SalesWindow {
+    LAST_HOUR,
+    LAST_DAY,
+    LAST_WEEK
+}
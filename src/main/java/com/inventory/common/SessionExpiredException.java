@@ -0,0 +1,15 @@
+package com.inventory.common;
+
+import java.rmi.RemoteException;
+
+/**
+ * Thrown by InventoryService calls made without a live session token. The
+ * client should send the user back to the login screen.
+ */
+public class SessionExpiredException extends RemoteException {
+    private static final long serialVersionUID = 1L;
+
+    public SessionExpiredException() {
+        super("Session expired or invalid, please log in again");
+    }
+}
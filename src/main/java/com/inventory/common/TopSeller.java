@@ -0,0 +1,44 @@
+package com.inventory.common;
+
+import java.io.Serializable;
+
+/**
+ * One entry of a best-seller ranking. The value is an estimate from a bounded
+ * sketch: it is never below the product's true units or revenue in the window,
+ * and at most maxError above it.
+ */
+public class TopSeller implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int productId;
+    private String productName;
+    private double value;
+    private double maxError;
+
+    public TopSeller(int productId, String productName, double value, double maxError) {
+        this.productId = productId;
+        this.productName = productName;
+        this.value = value;
+        this.maxError = maxError;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public double getMaxError() {
+        return maxError;
+    }
+
+    public boolean isExact() {
+        return maxError == 0;
+    }
+}
@@ -0,0 +1,6 @@
+package com.inventory.common;
+
+public enum TopSellerMetric {
+    UNITS,
+    REVENUE
+}
@@ -8,6 +8,8 @@ public class User implements Serializable {
     private String email;
     private String password;
     private String fullName;
+    private Role role = Role.CASHIER; // assigned by the server, ignored on registration
+    private String sessionToken; // set on the copy returned by login
 
     public User() {
     }
@@ -67,4 +69,20 @@ public class User implements Serializable {
     public void setFullName(String fullName) {
         this.fullName = fullName;
     }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public void setRole(Role role) {
+        this.role = role;
+    }
+
+    public String getSessionToken() {
+        return sessionToken;
+    }
+
+    public void setSessionToken(String sessionToken) {
+        this.sessionToken = sessionToken;
+    }
 }
@@ -0,0 +1,200 @@
+package com.inventory.server;
+
+import com.inventory.common.SalesWindow;
+import com.inventory.common.TopSellerMetric;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Best-selling products by units and by revenue over the last hour, day and
+ * week, fed from the sale path.
+ *
+ * Each window is a ring of time slots, and each slot keeps a Space-Saving
+ * summary per metric, so memory is fixed by the slot count and the summary
+ * capacity no matter how many sales or products there are. A slot is cleared
+ * when the ring comes back round to it. A window answers with every slot that
+ * overlaps it, so "last hour" covers between 60 and 65 minutes.
+ *
+ * The sale path never touches the summaries. A sale is appended to one of
+ * several lock-free queues, picked by thread, and a single thread drains them
+ * into the windows every DRAIN_MILLIS; a query drains first, so it sees every
+ * sale recorded before it.
+ */
+public class BestSellers {
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DRAIN_MILLIS = 100;
+
+    // Estimated value and the most it can overstate the truth, per product
+    static class Estimate {
+        final int productId;
+        final double value;
+        final double maxError;
+
+        Estimate(int productId, double value, double maxError) {
+            this.productId = productId;
+            this.value = value;
+            this.maxError = maxError;
+        }
+    }
+
+    private static class Sale {
+        final long soldAt;
+        final int productId;
+        final int units;
+        final double revenue;
+
+        Sale(long soldAt, int productId, int units, double revenue) {
+            this.soldAt = soldAt;
+            this.productId = productId;
+            this.units = units;
+            this.revenue = revenue;
+        }
+    }
+
+    // Windows are only touched under this object's lock, by the drainer and queries
+    private final Map<SalesWindow, Window> windows = new EnumMap<>(SalesWindow.class);
+    private final List<Queue<Sale>> pending = new ArrayList<>();
+    private final ScheduledExecutorService drainer;
+
+    public BestSellers(int capacity) {
+        windows.put(SalesWindow.LAST_HOUR, new Window(5 * MINUTE, 12, capacity));
+        windows.put(SalesWindow.LAST_DAY, new Window(HOUR, 24, capacity));
+        windows.put(SalesWindow.LAST_WEEK, new Window(6 * HOUR, 28, capacity));
+        // A power of two, so a thread id picks its queue with a mask
+        int queues = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2);
+        for (int i = 0; i < queues; i++) {
+            pending.add(new ConcurrentLinkedQueue<>());
+        }
+        this.drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bestsellers-drainer");
+            t.setDaemon(true);
+            return t;
+        });
+        drainer.scheduleWithFixedDelay(this::drain, DRAIN_MILLIS, DRAIN_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a sale for the summaries; takes no lock
+     */
+    public void record(int productId, int units, double revenue) {
+        int queue = (int) Thread.currentThread().getId() & (pending.size() - 1);
+        pending.get(queue).add(new Sale(System.currentTimeMillis(), productId, units, revenue));
+    }
+
+    synchronized List<Estimate> getTop(SalesWindow window, TopSellerMetric metric, int limit) {
+        drain();
+        return windows.get(window).top(System.currentTimeMillis(), metric, limit);
+    }
+
+    private synchronized void drain() {
+        for (Queue<Sale> queue : pending) {
+            Sale sale;
+            while ((sale = queue.poll()) != null) {
+                for (Window w : windows.values()) {
+                    w.record(sale.soldAt, sale.productId, sale.units, sale.revenue);
+                }
+            }
+        }
+    }
+
+    public void shutdown() {
+        drainer.shutdownNow();
+    }
+
+    private static class Slot {
+        long index = -1;
+        final SpaceSaving units;
+        final SpaceSaving revenue;
+
+        Slot(int capacity) {
+            units = new SpaceSaving(capacity);
+            revenue = new SpaceSaving(capacity);
+        }
+
+        SpaceSaving summary(TopSellerMetric metric) {
+            return metric == TopSellerMetric.UNITS ? units : revenue;
+        }
+    }
+
+    private static class Window {
+        private final long slotMillis;
+        private final int span;
+        // One slot more than the window spans, for the slot currently filling
+        private final Slot[] slots;
+
+        Window(long slotMillis, int span, int capacity) {
+            this.slotMillis = slotMillis;
+            this.span = span;
+            this.slots = new Slot[span + 1];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = new Slot(capacity);
+            }
+        }
+
+        void record(long soldAt, int productId, int units, double revenue) {
+            long index = soldAt / slotMillis;
+            Slot slot = slots[(int) (index % slots.length)];
+            if (index < slot.index) {
+                return; // drained too late, its slot has been reused
+            }
+            if (slot.index != index) {
+                slot.index = index;
+                slot.units.clear();
+                slot.revenue.clear();
+            }
+            slot.units.add(productId, units);
+            slot.revenue.add(productId, revenue);
+        }
+
+        List<Estimate> top(long now, TopSellerMetric metric, int limit) {
+            long current = now / slotMillis;
+            List<SpaceSaving> live = new ArrayList<>();
+            for (Slot slot : slots) {
+                if (slot.index >= current - span && slot.index <= current) {
+                    live.add(slot.summary(metric));
+                }
+            }
+
+            // Sum each product over the slots; a slot without a counter for it
+            // adds nothing to the value but can hide up to its smallest count
+            Map<Integer, double[]> merged = new HashMap<>(); // value, max error
+            for (SpaceSaving summary : live) {
+                for (SpaceSaving.Counter c : summary.counters()) {
+                    double[] acc = merged.computeIfAbsent(c.key, k -> new double[2]);
+                    acc[0] += c.count;
+                    acc[1] += c.error;
+                }
+            }
+            for (SpaceSaving summary : live) {
+                double hidden = summary.unmonitoredBound();
+                if (hidden == 0) {
+                    continue;
+                }
+                for (Map.Entry<Integer, double[]> entry : merged.entrySet()) {
+                    if (summary.get(entry.getKey()) == null) {
+                        entry.getValue()[0] += hidden;
+                        entry.getValue()[1] += hidden;
+                    }
+                }
+            }
+
+            List<Estimate> list = new ArrayList<>();
+            for (Map.Entry<Integer, double[]> entry : merged.entrySet()) {
+                list.add(new Estimate(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+            }
+            list.sort(Comparator.comparingDouble((Estimate e) -> e.value).reversed()
+                    .thenComparingInt(e -> e.productId));
+            return list.size() > limit ? new ArrayList<>(list.subList(0, limit)) : list;
+        }
+    }
+}
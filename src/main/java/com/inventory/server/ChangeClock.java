@@ -0,0 +1,42 @@
+package com.inventory.server;
+
+import java.util.TreeSet;
+
+/**
+ * Hands out product change versions and tracks which of them are still being
+ * written.
+ *
+ * A writer takes a block of versions with begin() before it writes and calls
+ * end() once its transaction has committed or rolled back. watermark() is the
+ * highest version below which every write has finished, so a delta query
+ * bounded by it can never skip a change that commits later with a lower
+ * version. Versions are allocated in process, so this is for InMemoryStore,
+ * whose data lives in this process too; DatabaseHandler keeps its counter in
+ * the database.
+ */
+class ChangeClock {
+    private long last;
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+
+    ChangeClock(long last) {
+        this.last = last;
+    }
+
+    /**
+     * Reserve count consecutive versions and return the first
+     */
+    synchronized long begin(int count) {
+        long first = last + 1;
+        last += Math.max(1, count);
+        inFlight.add(first);
+        return first;
+    }
+
+    synchronized void end(long first) {
+        inFlight.remove(first);
+    }
+
+    synchronized long watermark() {
+        return inFlight.isEmpty() ? last : inFlight.first() - 1;
+    }
+}
@@ -0,0 +1,343 @@
+package com.inventory.server;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded JDBC connection pool.
+ *
+ * Connections handed out by {@link #getConnection()} are proxies: calling
+ * close() returns the physical connection to the pool instead of closing it,
+ * so callers keep using try-with-resources exactly as with DriverManager.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int maxSize;
+    private final int minIdle;
+    private final long waitTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final long leakThresholdMillis;
+    private final int validationTimeoutSeconds = 2;
+    private final int statementCacheSize;
+
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Map<PooledConnection, Long> borrowed = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    // Metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password) {
+        this(url, user, password, 20, 2, 5000, TimeUnit.MINUTES.toMillis(30), TimeUnit.SECONDS.toMillis(60), 64);
+    }
+
+    public ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+            long waitTimeoutMillis, long maxLifetimeMillis, long leakThresholdMillis, int statementCacheSize) {
+        if (maxSize <= 0 || minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: max=" + maxSize + ", minIdle=" + minIdle);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = minIdle;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+
+        fillToMinIdle();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 30, 30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the configured timeout if the pool is exhausted.
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(waitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLTimeoutException("Timed out after " + waitTimeoutMillis
+                        + " ms waiting for a database connection (" + getStats() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pc = takeValidIdle();
+            if (pc == null) {
+                pc = createConnection();
+            }
+            pc.borrowStack = leakThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null;
+            borrowed.put(pc, System.currentTimeMillis());
+            borrowCount.incrementAndGet();
+            return pc.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeValidIdle() {
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            if (pc.isExpired()) {
+                destroy(pc);
+                continue;
+            }
+            try {
+                if (pc.physical.isValid(validationTimeoutSeconds)) {
+                    return pc;
+                }
+            } catch (SQLException e) {
+                // treat as invalid
+            }
+            validationFailures.incrementAndGet();
+            destroy(pc);
+        }
+        return null;
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        totalConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void release(PooledConnection pc) {
+        if (borrowed.remove(pc) == null) {
+            return;
+        }
+        pc.borrowStack = null;
+        try {
+            if (closed || pc.isExpired() || pc.physical.isClosed()) {
+                destroy(pc);
+            } else {
+                if (!pc.physical.getAutoCommit()) {
+                    // Never hand out a connection with a half-finished transaction
+                    pc.physical.rollback();
+                    pc.physical.setAutoCommit(true);
+                }
+                idle.offerFirst(pc);
+            }
+        } catch (SQLException e) {
+            destroy(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection pc) {
+        totalConnections.decrementAndGet();
+        pc.statements.close();
+        try {
+            pc.physical.close();
+        } catch (SQLException e) {
+            // already broken
+        }
+    }
+
+    private void fillToMinIdle() {
+        while (!closed && idle.size() < minIdle && totalConnections.get() < maxSize) {
+            try {
+                idle.offerLast(createConnection());
+            } catch (SQLException e) {
+                System.err.println("Connection pool warmup failed: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void housekeep() {
+        try {
+            // Retire idle connections that have outlived their max lifetime
+            for (PooledConnection pc : idle) {
+                if (pc.isExpired() && idle.remove(pc)) {
+                    destroy(pc);
+                }
+            }
+
+            // Report connections held longer than the leak threshold
+            if (leakThresholdMillis > 0) {
+                long now = System.currentTimeMillis();
+                for (Map.Entry<PooledConnection, Long> entry : borrowed.entrySet()) {
+                    PooledConnection pc = entry.getKey();
+                    if (!pc.leakReported && now - entry.getValue() > leakThresholdMillis) {
+                        pc.leakReported = true;
+                        leakCount.incrementAndGet();
+                        System.err.println("Possible connection leak: held for " + (now - entry.getValue()) + " ms");
+                        Throwable stack = pc.borrowStack;
+                        if (stack != null) {
+                            stack.printStackTrace();
+                        }
+                    }
+                }
+            }
+
+            fillToMinIdle();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public String getStats() {
+        long borrows = borrowCount.get();
+        long avgWaitMicros = borrows == 0 ? 0 : totalWaitNanos.get() / borrows / 1000;
+        return "total=" + totalConnections.get()
+                + ", idle=" + idle.size()
+                + ", active=" + borrowed.size()
+                + ", max=" + maxSize
+                + ", borrows=" + borrows
+                + ", created=" + createdCount.get()
+                + ", timeouts=" + timeoutCount.get()
+                + ", validationFailures=" + validationFailures.get()
+                + ", leaks=" + leakCount.get()
+                + ", avgWaitUs=" + avgWaitMicros
+                + ", maxWaitUs=" + maxWaitNanos.get() / 1000
+                + ", stmtCacheHits=" + statementCacheHits.get()
+                + ", stmtCacheMisses=" + statementCacheMisses.get();
+    }
+
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            destroy(pc);
+        }
+        // Borrowed connections are destroyed as they are returned
+    }
+
+    private class PooledConnection {
+        final Connection physical;
+        final StatementCache statements;
+        final long createdAt = System.currentTimeMillis();
+        volatile Throwable borrowStack;
+        volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, statementCacheSize,
+                    statementCacheHits, statementCacheMisses);
+        }
+
+        boolean isExpired() {
+            return maxLifetimeMillis > 0 && System.currentTimeMillis() - createdAt > maxLifetimeMillis;
+        }
+
+        Connection newHandle() {
+            leakReported = false;
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * Per-borrow view of a pooled connection. Once closed it can no longer be used,
+     * even though the physical connection lives on in the pool.
+     */
+    private class Handle implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean handleClosed = false;
+
+        Handle(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return handleClosed || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pc.physical + "]";
+                default:
+                    break;
+            }
+            if (handleClosed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (method.getName().equals("prepareStatement") && args.length <= 2
+                    && (args.length == 1 || args[1] instanceof Integer)) {
+                int keys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                return pc.statements.prepare((String) args[0], keys);
+            }
+            try {
+                return method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,200 +1,687 @@
 package com.inventory.server;
 
+import com.inventory.common.CartLine;
+import com.inventory.common.CartLineResult;
+import com.inventory.common.CartResult;
+import com.inventory.common.Page;
 import com.inventory.common.Product;
+import com.inventory.common.ProductChanges;
+import com.inventory.common.ReportGrouping;
+import com.inventory.common.Role;
+import com.inventory.common.SalesAggregate;
+import com.inventory.common.SaleRecord;
+import com.inventory.common.SalesQuery;
+import com.inventory.common.SalesSummary;
 import com.inventory.common.User;
+import java.io.Serializable;
 import java.sql.*;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
 
-public class DatabaseHandler {
-    private static final String URL = "jdbc:mysql://localhost:3306/";
-    private static final String DB_NAME = "inventory_db";
-    private static final String USER = "root";
-    private static final String PASS = "";
+/**
+ * MySQL implementation of InventoryStore.
+ */
+public class DatabaseHandler implements InventoryStore {
+    public static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/";
+    public static final String DEFAULT_DB_NAME = "inventory_db";
+    public static final String DEFAULT_USER = "root";
+    public static final String DEFAULT_PASS = "";
+    private static final int MAX_PAGE_SIZE = 1000;
+    // Comfortably longer than a write transaction runs after taking its versions;
+    // InnoDB gives up on a row lock after innodb_lock_wait_timeout (50 s by default)
+    private static final int SYNC_OVERLAP_SECONDS = 120;
+    private static final String MARK_AGE = "NOW(3) - INTERVAL " + SYNC_OVERLAP_SECONDS + " SECOND";
+    // Rollup buckets, in the server's DATETIME format
+    private static final DateTimeFormatter HOUR_BUCKET = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:00:00");
+    private static final DateTimeFormatter DAY_BUCKET = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-    public DatabaseHandler() {
+    private final String url;
+    private final String dbName;
+    private final String user;
+    private final String pass;
+
+    private final ConnectionPool pool;
+    // Serializes writers of the same product only; reads never take a lock
+    private final StripedLock productLocks = new StripedLock(64);
+
+    public DatabaseHandler() throws SQLException {
+        this(DEFAULT_URL, DEFAULT_DB_NAME, DEFAULT_USER, DEFAULT_PASS);
+    }
+
+    /**
+     * Creates the database if needed and brings its schema up to date. Fails if a
+     * migration cannot be applied, so the server never runs on a schema in an
+     * unknown state.
+     */
+    public DatabaseHandler(String url, String dbName, String user, String pass) throws SQLException {
+        this.url = url;
+        this.dbName = dbName;
+        this.user = user;
+        this.pass = pass;
         initDB();
+        // Let the driver rewrite JDBC batches into multi-row statements, send a plain
+        // statement batch of any size in one round trip, skip autocommit round trips
+        // when the session already has that state, and prepare statements on the
+        // server so the pool's statement cache saves the parse as well
+        pool = new ConnectionPool(url + dbName
+                + "?rewriteBatchedStatements=true&allowMultiQueries=true&useLocalSessionState=true"
+                + "&useServerPrepStmts=true",
+                user, pass);
+    }
+
+    /**
+     * Reserve count consecutive change versions and return the first. Runs as its
+     * own autocommit statement before the caller's transaction begins, so the
+     * counter row is locked for that one statement only and writers of different
+     * products never wait on each other's transactions. The same statement moves
+     * the safe version forward (see safeVersion).
+     */
+    private static long nextVersions(Connection conn, int count) throws SQLException {
+        int n = Math.max(1, count);
+        String sql = "UPDATE change_clock SET "
+                + "safe_version = IF(mark_at <= " + MARK_AGE + ", mark_version, safe_version), "
+                + "mark_version = IF(mark_at <= " + MARK_AGE + ", version, mark_version), "
+                + "mark_at = IF(mark_at <= " + MARK_AGE + ", NOW(3), mark_at), "
+                + "version = LAST_INSERT_ID(version + ?) WHERE id = 1";
+        try (PreparedStatement bump = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            bump.setInt(1, n);
+            bump.executeUpdate();
+            // The driver reports the LAST_INSERT_ID(expr) value as the generated key
+            try (ResultSet keys = bump.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1) - n + 1;
+            }
+        }
+    }
+
+    /**
+     * Highest change version below which every write has committed or rolled
+     * back. Versions are taken before their transaction starts, so a change can
+     * commit after one with a higher version; but every version up to a mark at
+     * least SYNC_OVERLAP_SECONDS old was taken by a transaction that is over.
+     */
+    private static long safeVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT IF(mark_at <= " + MARK_AGE
+                        + ", mark_version, safe_version) FROM change_clock WHERE id = 1")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
     }
 
     private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL + DB_NAME, USER, PASS);
+        return pool.getConnection();
+    }
+
+    /**
+     * Connection pool statistics, for monitoring
+     */
+    public String getPoolStats() {
+        return pool.getStats();
+    }
+
+    @Override
+    public void close() {
+        pool.close();
     }
 
-    private void initDB() {
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASS);
+    private void initDB() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url, user, pass);
                 Statement stmt = conn.createStatement()) {
 
-            stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS " + DB_NAME);
-            stmt.executeUpdate("USE " + DB_NAME);
-
-            String createProductTable = "CREATE TABLE IF NOT EXISTS products (" +
-                    "id INT AUTO_INCREMENT PRIMARY KEY," +
-                    "name VARCHAR(100) NOT NULL," +
-                    "price DOUBLE NOT NULL," +
-                    "quantity INT NOT NULL," +
-                    "category VARCHAR(50))";
-            stmt.executeUpdate(createProductTable);
-
-            String createSalesTable = "CREATE TABLE IF NOT EXISTS sales (" +
-                    "id INT AUTO_INCREMENT PRIMARY KEY," +
-                    "product_id INT," +
-                    "quantity INT," +
-                    "total_price DOUBLE," +
-                    "sale_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                    "product_name VARCHAR(100))";
-            stmt.executeUpdate(createSalesTable);
-
-            // Migration for existing table
-            try {
-                stmt.executeUpdate("ALTER TABLE sales ADD COLUMN product_name VARCHAR(100)");
-            } catch (SQLException e) {
-                // Column likely exists, ignore
-            }
+            stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS " + dbName);
+            stmt.executeUpdate("USE " + dbName);
 
-            // Create users table for authentication
-            String createUsersTable = "CREATE TABLE IF NOT EXISTS users (" +
-                    "id INT AUTO_INCREMENT PRIMARY KEY," +
-                    "username VARCHAR(50) NOT NULL UNIQUE," +
-                    "email VARCHAR(100) NOT NULL UNIQUE," +
-                    "password VARCHAR(255) NOT NULL," +
-                    "full_name VARCHAR(100) NOT NULL," +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
-            stmt.executeUpdate(createUsersTable);
+            new SchemaMigrator(conn).migrate();
 
             System.out.println("Database and tables initialized.");
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
     }
 
-    public synchronized void addProduct(Product p) throws SQLException {
-        String sql = "INSERT INTO products (name, price, quantity, category) VALUES (?, ?, ?, ?)";
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, p.getName());
-            pstmt.setDouble(2, p.getPrice());
-            pstmt.setInt(3, p.getQuantity());
-            pstmt.setString(4, p.getCategory());
-            pstmt.executeUpdate();
+    @Override
+    public int addProduct(Product p) throws SQLException {
+        String sql = "INSERT INTO products (name, price, quantity, category, reorder_level, version) VALUES (?, ?, ?, ?, ?, ?)";
+        try (Connection conn = getConnection()) {
+            long version = nextVersions(conn, 1);
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setString(1, p.getName());
+                pstmt.setDouble(2, p.getPrice());
+                pstmt.setInt(3, p.getQuantity());
+                pstmt.setString(4, p.getCategory());
+                pstmt.setInt(5, p.getReorderLevel());
+                pstmt.setLong(6, version);
+                pstmt.executeUpdate();
+                int id;
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    keys.next();
+                    id = keys.getInt(1);
+                }
+                conn.commit();
+                return id;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
     }
 
-    public synchronized void updateProduct(Product p) throws SQLException {
-        String sql = "UPDATE products SET name=?, price=?, quantity=?, category=? WHERE id=?";
-        try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, p.getName());
-            pstmt.setDouble(2, p.getPrice());
-            pstmt.setInt(3, p.getQuantity());
-            pstmt.setString(4, p.getCategory());
-            pstmt.setInt(5, p.getId());
-            pstmt.executeUpdate();
+    @Override
+    public void updateProduct(Product p) throws SQLException {
+        String sql = "UPDATE products SET name=?, price=?, quantity=?, category=?, reorder_level=?, version=? WHERE id=?";
+        ReentrantLock lock = productLocks.get(p.getId());
+        lock.lock();
+        try (Connection conn = getConnection()) {
+            long version = nextVersions(conn, 1);
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, p.getName());
+                pstmt.setDouble(2, p.getPrice());
+                pstmt.setInt(3, p.getQuantity());
+                pstmt.setString(4, p.getCategory());
+                pstmt.setInt(5, p.getReorderLevel());
+                pstmt.setLong(6, version);
+                pstmt.setInt(7, p.getId());
+                pstmt.executeUpdate();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
-    public synchronized void deleteProduct(int id) throws SQLException {
+    @Override
+    public void deleteProduct(int id) throws SQLException {
         String sql = "DELETE FROM products WHERE id=?";
+        // The tombstone tells delta sync clients that the row is gone
+        String tombstoneSql = "INSERT INTO product_tombstones (product_id, version) VALUES (?, ?) "
+                + "ON DUPLICATE KEY UPDATE version = VALUES(version)";
+        ReentrantLock lock = productLocks.get(id);
+        lock.lock();
+        try (Connection conn = getConnection()) {
+            long version = nextVersions(conn, 1);
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, id);
+                if (pstmt.executeUpdate() > 0) {
+                    try (PreparedStatement tombstoneStmt = conn.prepareStatement(tombstoneSql)) {
+                        tombstoneStmt.setInt(1, id);
+                        tombstoneStmt.setLong(2, version);
+                        tombstoneStmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int importProducts(List<Product> products) throws SQLException {
+        String insertSql = "INSERT INTO products (name, price, quantity, category, version) VALUES (?, ?, ?, ?, ?)";
+        String upsertSql = "INSERT INTO products (id, name, price, quantity, category, version) VALUES (?, ?, ?, ?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE name = VALUES(name), price = VALUES(price), "
+                + "quantity = VALUES(quantity), category = VALUES(category), version = VALUES(version)";
+
+        try (Connection conn = getConnection()) {
+            // One version per row keeps delta sync pages from splitting a version
+            long version = nextVersions(conn, products.size());
+            conn.setAutoCommit(false);
+            try (PreparedStatement insertStmt = conn.prepareStatement(insertSql);
+                    PreparedStatement upsertStmt = conn.prepareStatement(upsertSql)) {
+                boolean inserts = false;
+                boolean upserts = false;
+                for (int i = 0; i < products.size(); i++) {
+                    Product p = products.get(i);
+                    if (p.getId() > 0) {
+                        upsertStmt.setInt(1, p.getId());
+                        upsertStmt.setString(2, p.getName());
+                        upsertStmt.setDouble(3, p.getPrice());
+                        upsertStmt.setInt(4, p.getQuantity());
+                        upsertStmt.setString(5, p.getCategory());
+                        upsertStmt.setLong(6, version + i);
+                        upsertStmt.addBatch();
+                        upserts = true;
+                    } else {
+                        insertStmt.setString(1, p.getName());
+                        insertStmt.setDouble(2, p.getPrice());
+                        insertStmt.setInt(3, p.getQuantity());
+                        insertStmt.setString(4, p.getCategory());
+                        insertStmt.setLong(5, version + i);
+                        insertStmt.addBatch();
+                        inserts = true;
+                    }
+                }
+                // Sent as multi-row statements thanks to rewriteBatchedStatements. Explicit ids
+                // go first: they move AUTO_INCREMENT past themselves, so no insert can take an
+                // id that a later row of the chunk upserts
+                if (upserts) {
+                    upsertStmt.executeBatch();
+                }
+                if (inserts) {
+                    insertStmt.executeBatch();
+                }
+                conn.commit();
+                return products.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Raise the AUTO_INCREMENT counter past maxId. It is only ever raised: setting
+     * it lower would hand out the ids of deleted products again.
+     */
+    @Override
+    public void reserveProductIds(int maxId) throws SQLException {
         try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, id);
-            pstmt.executeUpdate();
+                Statement stmt = conn.createStatement()) {
+            try {
+                // MySQL 8 caches the counter in information_schema for a day by default
+                stmt.execute("SET SESSION information_schema_stats_expiry = 0");
+            } catch (SQLException e) {
+                if (e.getErrorCode() != 1193) { // unknown variable: older servers do not cache it
+                    throw e;
+                }
+            }
+            long next;
+            try (ResultSet rs = stmt.executeQuery("SELECT AUTO_INCREMENT FROM information_schema.TABLES "
+                    + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'products'")) {
+                next = rs.next() ? rs.getLong(1) : 0;
+            }
+            if (next <= maxId) {
+                stmt.executeUpdate("ALTER TABLE products AUTO_INCREMENT = " + ((long) maxId + 1));
+            }
         }
     }
 
-    public synchronized List<Product> getAllProducts() throws SQLException {
+    @Override
+    public List<Product> getAllProducts() throws SQLException {
         List<Product> list = new ArrayList<>();
         String sql = "SELECT * FROM products";
         try (Connection conn = getConnection();
                 Statement stmt = conn.createStatement();
                 ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                list.add(new Product(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getDouble("price"),
-                        rs.getInt("quantity"),
-                        rs.getString("category")));
+                list.add(readProduct(rs));
             }
         }
         return list;
     }
 
-    public synchronized Product getProduct(int id) throws SQLException {
+    private static Product readProduct(ResultSet rs) throws SQLException {
+        Product p = new Product(
+                rs.getInt("id"),
+                rs.getString("name"),
+                rs.getDouble("price"),
+                rs.getInt("quantity"),
+                rs.getString("category"));
+        p.setReorderLevel(rs.getInt("reorder_level"));
+        return p;
+    }
+
+    @Override
+    public Product getProduct(int id) throws SQLException {
         String sql = "SELECT * FROM products WHERE id=?";
         try (Connection conn = getConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return new Product(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getDouble("price"),
-                            rs.getInt("quantity"),
-                            rs.getString("category"));
+                    return readProduct(rs);
                 }
             }
         }
         return null;
     }
 
-    // Transactional sale
-    public synchronized boolean processSale(int productId, int quantity) throws SQLException {
-        Connection conn = null;
-        try {
-            conn = getConnection();
+    @Override
+    public int liveStock(int productId) {
+        return -1;
+    }
+
+    /**
+     * Transactional sale. Stock is decremented with a conditional UPDATE, so the
+     * database alone decides whether there is enough stock: the row count says
+     * whether the sale happened, even with several servers on the same schema.
+     * The sale row copies price and name from the locked product row server-side,
+     * and the sales rollups are updated in the same transaction. The stock left is
+     * read back under the row lock, so it is exactly what this sale committed.
+     */
+    @Override
+    public int processSale(int productId, int quantity) throws SQLException {
+        if (quantity <= 0) {
+            return -1;
+        }
+        // LAST_INSERT_ID(expr) hands the remaining stock back with the update's
+        // result, so no SELECT is needed to read it
+        String updateSql = "UPDATE products SET quantity = LAST_INSERT_ID(quantity - ?), version = ? "
+                + "WHERE id = ? AND quantity >= ?";
+        String saleSql = "INSERT INTO sales (product_id, quantity, total_price, product_name, sale_date) "
+                + "SELECT id, ?, price * ?, name, ? FROM products WHERE id = ?";
+
+        Timestamp soldAt = new Timestamp(System.currentTimeMillis());
+        try (Connection conn = getConnection()) {
+            long version = nextVersions(conn, 1);
             conn.setAutoCommit(false); // Start transaction
+            try {
+                int left;
+                try (PreparedStatement updateStmt = conn.prepareStatement(updateSql, Statement.RETURN_GENERATED_KEYS)) {
+                    updateStmt.setInt(1, quantity);
+                    updateStmt.setLong(2, version);
+                    updateStmt.setInt(3, productId);
+                    updateStmt.setInt(4, quantity);
+                    if (updateStmt.executeUpdate() == 0) {
+                        // Unknown product or not enough stock; nothing was written
+                        conn.rollback();
+                        return -1;
+                    }
+                    // The driver reports no key when the value is 0, i.e. the last unit sold
+                    try (ResultSet keys = updateStmt.getGeneratedKeys()) {
+                        left = keys.next() ? keys.getInt(1) : 0;
+                    }
+                }
 
-            // check stock
-            String stockSql = "SELECT quantity, price, name FROM products WHERE id=?";
-            PreparedStatement stockStmt = conn.prepareStatement(stockSql);
-            stockStmt.setInt(1, productId);
-            ResultSet rs = stockStmt.executeQuery();
-
-            if (rs.next()) {
-                int currentStock = rs.getInt("quantity");
-                double price = rs.getDouble("price");
-                String productName = rs.getString("name");
-
-                if (currentStock >= quantity) {
-                    // Update Stock
-                    String updateSql = "UPDATE products SET quantity=? WHERE id=?";
-                    PreparedStatement updateStmt = conn.prepareStatement(updateSql);
-                    updateStmt.setInt(1, currentStock - quantity);
-                    updateStmt.setInt(2, productId);
-                    updateStmt.executeUpdate();
-
-                    // Record Sale
-                    String saleSql = "INSERT INTO sales (product_id, quantity, total_price, product_name) VALUES (?, ?, ?, ?)";
-                    PreparedStatement saleStmt = conn.prepareStatement(saleSql);
-                    saleStmt.setInt(1, productId);
+                try (PreparedStatement saleStmt = conn.prepareStatement(saleSql)) {
+                    saleStmt.setInt(1, quantity);
                     saleStmt.setInt(2, quantity);
-                    saleStmt.setDouble(3, price * quantity);
-                    saleStmt.setString(4, productName);
+                    saleStmt.setTimestamp(3, soldAt);
+                    saleStmt.setInt(4, productId);
                     saleStmt.executeUpdate();
+                }
+
+                List<RollupLine> rollup = new ArrayList<>();
+                rollup.add(new RollupLine(soldAt, productId, quantity, 1));
+                addToRollups(conn, rollup);
+
+                conn.commit();
+                return left;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Last sales journal entry already applied by applyJournaledSales
+     */
+    public long getJournalCheckpoint() throws SQLException {
+        try (Connection conn = getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT last_seq FROM sales_journal_checkpoint WHERE id = 1")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Write journaled hot-product sales: stock was already reserved in memory,
+     * so quantities are decremented without a stock check. The rollups and the
+     * checkpoint move in the same transaction, so entries are never applied twice.
+     */
+    public void applyJournaledSales(List<SalesJournal.Entry> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> sold = new TreeMap<>();
+        for (SalesJournal.Entry e : entries) {
+            sold.merge(e.productId, e.quantity, Integer::sum);
+        }
+        String saleSql = "INSERT INTO sales (product_id, quantity, total_price, product_name, sale_date) "
+                + "SELECT id, ?, price * ?, name, ? FROM products WHERE id = ?";
+
+        try (Connection conn = getConnection()) {
+            long version = nextVersions(conn, sold.size());
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement updateStmt = conn.prepareStatement(
+                        "UPDATE products SET quantity = quantity - ?, version = ? WHERE id = ?")) {
+                    long next = version;
+                    for (Map.Entry<Integer, Integer> entry : sold.entrySet()) {
+                        updateStmt.setInt(1, entry.getValue());
+                        updateStmt.setLong(2, next++);
+                        updateStmt.setInt(3, entry.getKey());
+                        updateStmt.addBatch();
+                    }
+                    updateStmt.executeBatch();
+                }
+                try (PreparedStatement saleStmt = conn.prepareStatement(saleSql)) {
+                    for (SalesJournal.Entry e : entries) {
+                        saleStmt.setInt(1, e.quantity);
+                        saleStmt.setInt(2, e.quantity);
+                        saleStmt.setTimestamp(3, new Timestamp(e.soldAt));
+                        saleStmt.setInt(4, e.productId);
+                        saleStmt.addBatch();
+                    }
+                    saleStmt.executeBatch();
+                }
+                List<RollupLine> rollup = new ArrayList<>();
+                for (SalesJournal.Entry e : entries) {
+                    rollup.add(new RollupLine(new Timestamp(e.soldAt), e.productId, e.quantity, 1));
+                }
+                addToRollups(conn, rollup);
+                try (PreparedStatement checkpointStmt = conn.prepareStatement(
+                        "UPDATE sales_journal_checkpoint SET last_seq = ? WHERE id = 1")) {
+                    checkpointStmt.setLong(1, entries.get(entries.size() - 1).seq);
+                    checkpointStmt.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Sell every line of a cart in one transaction. Stock rows are locked in id
+     * order with a single SELECT ... FOR UPDATE, and the sales rows are written
+     * as one JDBC batch. If any line cannot be fulfilled nothing is sold.
+     */
+    @Override
+    public CartResult processCart(List<CartLine> lines) throws SQLException {
+        // Total requested quantity per product, so repeated lines are checked together
+        Map<Integer, Integer> requested = new TreeMap<>();
+        for (CartLine line : lines) {
+            requested.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        if (requested.isEmpty()) {
+            return new CartResult(0, false, new ArrayList<>());
+        }
+
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            long version = nextVersions(conn, requested.size());
+            conn.setAutoCommit(false);
+
+            Map<Integer, Product> stock = new HashMap<>();
+            String placeholders = String.join(",", Collections.nCopies(requested.size(), "?"));
+            String stockSql = "SELECT id, name, price, quantity, category, reorder_level FROM products WHERE id IN ("
+                    + placeholders + ") ORDER BY id FOR UPDATE";
+            try (PreparedStatement stockStmt = conn.prepareStatement(stockSql)) {
+                int i = 1;
+                for (int productId : requested.keySet()) {
+                    stockStmt.setInt(i++, productId);
+                }
+                try (ResultSet rs = stockStmt.executeQuery()) {
+                    while (rs.next()) {
+                        stock.put(rs.getInt("id"), readProduct(rs));
+                    }
+                }
+            }
+
+            // Validate every line before touching anything
+            boolean allOk = true;
+            List<CartLineResult> results = new ArrayList<>();
+            for (CartLine line : lines) {
+                Product p = stock.get(line.getProductId());
+                String error = null;
+                if (line.getQuantity() <= 0) {
+                    error = "Invalid quantity";
+                } else if (p == null) {
+                    error = "Product not found";
+                } else if (p.getQuantity() < requested.get(line.getProductId())) {
+                    error = "Insufficient stock (available: " + p.getQuantity() + ")";
+                }
+                if (error != null) {
+                    allOk = false;
+                }
+                int left = p == null ? 0 : p.getQuantity() - requested.get(line.getProductId());
+                results.add(new CartLineResult(line.getProductId(), p == null ? null : p.getName(),
+                        line.getQuantity(), p == null ? 0 : p.getPrice(), p == null ? 0 : left,
+                        error == null, error == null ? "OK" : error));
+            }
+            if (!allOk) {
+                conn.rollback();
+                return new CartResult(0, false, results);
+            }
 
-                    conn.commit();
-                    return true;
+            try (PreparedStatement updateStmt = conn.prepareStatement(
+                    "UPDATE products SET quantity = quantity - ?, version = ? WHERE id = ?")) {
+                long next = version;
+                for (Map.Entry<Integer, Integer> entry : requested.entrySet()) {
+                    updateStmt.setInt(1, entry.getValue());
+                    updateStmt.setLong(2, next++);
+                    updateStmt.setInt(3, entry.getKey());
+                    updateStmt.addBatch();
                 }
+                updateStmt.executeBatch();
             }
-            conn.rollback();
-            return false;
+
+            double orderTotal = results.stream().mapToDouble(CartLineResult::getLineTotal).sum();
+            int orderId;
+            try (PreparedStatement orderStmt = conn.prepareStatement(
+                    "INSERT INTO orders (total_price) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+                orderStmt.setDouble(1, orderTotal);
+                orderStmt.executeUpdate();
+                try (ResultSet keys = orderStmt.getGeneratedKeys()) {
+                    keys.next();
+                    orderId = keys.getInt(1);
+                }
+            }
+
+            Timestamp soldAt = new Timestamp(System.currentTimeMillis());
+            List<RollupLine> rollup = new ArrayList<>();
+            try (PreparedStatement saleStmt = conn.prepareStatement(
+                    "INSERT INTO sales (product_id, quantity, total_price, product_name, order_id, sale_date) "
+                            + "VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (CartLineResult r : results) {
+                    saleStmt.setInt(1, r.getProductId());
+                    saleStmt.setInt(2, r.getQuantity());
+                    saleStmt.setDouble(3, r.getLineTotal());
+                    saleStmt.setString(4, r.getProductName());
+                    saleStmt.setInt(5, orderId);
+                    saleStmt.setTimestamp(6, soldAt);
+                    saleStmt.addBatch();
+                    rollup.add(new RollupLine(soldAt, r.getProductId(), r.getQuantity(), 1));
+                }
+                saleStmt.executeBatch();
+            }
+            addToRollups(conn, rollup);
+
+            conn.commit();
+            return new CartResult(orderId, true, results);
         } catch (SQLException e) {
             if (conn != null)
                 conn.rollback();
             throw e;
         } finally {
-            if (conn != null)
+            if (conn != null) {
                 conn.setAutoCommit(true);
-            if (conn != null)
                 conn.close();
+            }
+        }
+    }
+
+    // Sales added to one rollup row: units and transaction count for a product in an hour
+    private static class RollupLine {
+        final Timestamp soldAt;
+        final int productId;
+        int units;
+        int transactions;
+
+        RollupLine(Timestamp soldAt, int productId, int units, int transactions) {
+            this.soldAt = soldAt;
+            this.productId = productId;
+            this.units = units;
+            this.transactions = transactions;
+        }
+    }
+
+    /**
+     * Add sales to the hourly and daily rollups inside the caller's transaction.
+     * Lines are merged per (hour, product) and written in that order, so concurrent
+     * writers lock rollup rows in the same order. Revenue and name come from the
+     * product row, the same way the sales rows themselves are priced. Both tables'
+     * upserts go to the server as one statement batch, in a single round trip.
+     */
+    private static void addToRollups(Connection conn, List<RollupLine> lines) throws SQLException {
+        TreeMap<Long, TreeMap<Integer, RollupLine>> merged = new TreeMap<>();
+        for (RollupLine line : lines) {
+            Timestamp hour = new Timestamp(floor(line.soldAt, Calendar.HOUR_OF_DAY).getTime());
+            merged.computeIfAbsent(hour.getTime(), h -> new TreeMap<>())
+                    .merge(line.productId, new RollupLine(hour, line.productId, line.units, line.transactions),
+                            (a, b) -> {
+                                a.units += b.units;
+                                a.transactions += b.transactions;
+                                return a;
+                            });
+        }
+        // A prepared statement batch is per statement, so the values are written into
+        // plain statements instead; they are all numbers and dates formatted here
+        DateTimeFormatter[] buckets = { HOUR_BUCKET, DAY_BUCKET };
+        String[] tables = { "sales_rollup_hourly", "sales_rollup_daily" };
+        try (Statement stmt = conn.createStatement()) {
+            for (int t = 0; t < tables.length; t++) {
+                for (TreeMap<Integer, RollupLine> hour : merged.values()) {
+                    for (RollupLine line : hour.values()) {
+                        stmt.addBatch("INSERT INTO " + tables[t]
+                                + " (bucket, product_id, product_name, units, revenue, transactions) "
+                                + "SELECT '" + buckets[t].format(line.soldAt.toLocalDateTime()) + "', id, name, "
+                                + line.units + ", price * " + line.units + ", " + line.transactions
+                                + " FROM products WHERE id = " + line.productId
+                                + " ON DUPLICATE KEY UPDATE product_name = VALUES(product_name), "
+                                + "units = units + VALUES(units), revenue = revenue + VALUES(revenue), "
+                                + "transactions = transactions + VALUES(transactions)");
+                    }
+                }
+            }
+            stmt.executeBatch();
         }
     }
 
-    public synchronized List<com.inventory.common.SaleRecord> getSales() throws SQLException {
-        List<com.inventory.common.SaleRecord> list = new ArrayList<>();
+    @Override
+    public List<SaleRecord> getSales() throws SQLException {
+        List<SaleRecord> list = new ArrayList<>();
         // Join with products table to get the name (fallback)
         String sql = "SELECT s.id, s.product_id, s.product_name, p.name as current_name, s.quantity, s.total_price, s.sale_date FROM sales s LEFT JOIN products p ON s.product_id = p.id ORDER BY s.sale_date DESC";
 
@@ -206,7 +693,7 @@ public class DatabaseHandler {
                 if (name == null) {
                     name = rs.getString("current_name");
                 }
-                list.add(new com.inventory.common.SaleRecord(
+                list.add(new SaleRecord(
                         rs.getInt("id"),
                         rs.getInt("product_id"),
                         name != null ? name : "Unknown",
@@ -218,11 +705,340 @@ public class DatabaseHandler {
         return list;
     }
 
-    public synchronized void resetDatabase() throws SQLException {
+    /**
+     * Products with id greater than afterId, in id order, optionally limited to one category
+     */
+    @Override
+    public Page<Product> getProductsPage(int afterId, int pageSize, String category) throws SQLException {
+        int limit = clampPageSize(pageSize);
+        String sql = "SELECT * FROM products WHERE id > ?"
+                + (category != null ? " AND category = ?" : "")
+                + " ORDER BY id LIMIT ?";
+        List<Product> list = new ArrayList<>();
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            pstmt.setInt(i++, afterId);
+            if (category != null) {
+                pstmt.setString(i++, category);
+            }
+            pstmt.setInt(i, limit + 1); // one extra row tells us whether another page exists
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(readProduct(rs));
+                }
+            }
+        }
+        return toPage(list, limit);
+    }
+
+    /**
+     * Products and tombstones with a version above sinceVersion, oldest change
+     * first. The last page hands back the safe version rather than the highest
+     * one it returned, so the next call reads the most recent changes again and
+     * also sees any that committed after this one with a lower version.
+     */
+    @Override
+    public ProductChanges getProductsChangedSince(long sinceVersion, int maxRows) throws SQLException {
+        int limit = clampPageSize(maxRows);
+        long safe;
+        String sql = "SELECT id, name, price, quantity, category, reorder_level, version, 0 AS deleted FROM products "
+                + "WHERE version > ? "
+                + "UNION ALL "
+                + "SELECT product_id, NULL, 0, 0, NULL, 0, version, 1 FROM product_tombstones "
+                + "WHERE version > ? "
+                + "ORDER BY version LIMIT ?";
+        List<Product> changed = new ArrayList<>();
+        List<Integer> deleted = new ArrayList<>();
+        long lastVersion = sinceVersion;
+        boolean hasMore = false;
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            // Read first: whatever it covers has committed by the time the rows are read
+            safe = safeVersion(conn);
+            pstmt.setLong(1, sinceVersion);
+            pstmt.setLong(2, sinceVersion);
+            pstmt.setInt(3, limit + 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int rows = 0;
+                while (rs.next()) {
+                    if (++rows > limit) {
+                        hasMore = true;
+                        break;
+                    }
+                    if (rs.getInt("deleted") == 1) {
+                        deleted.add(rs.getInt("id"));
+                    } else {
+                        changed.add(readProduct(rs));
+                    }
+                    lastVersion = rs.getLong("version");
+                }
+            }
+        }
+        return new ProductChanges(changed, deleted, hasMore ? lastVersion : safe, hasMore);
+    }
+
+    /**
+     * One page of sales, newest first, seeking past the query's cursor instead of using OFFSET
+     */
+    @Override
+    public Page<SaleRecord> getSalesPage(SalesQuery query) throws SQLException {
+        int limit = clampPageSize(query.getPageSize());
+        StringBuilder sql = new StringBuilder(
+                "SELECT s.id, s.product_id, s.product_name, p.name as current_name, s.quantity, s.total_price, s.sale_date "
+                        + "FROM sales s LEFT JOIN products p ON s.product_id = p.id WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        if (query.getBeforeDate() != null) {
+            sql.append(" AND (s.sale_date < ? OR (s.sale_date = ? AND s.id < ?))");
+            params.add(new Timestamp(query.getBeforeDate().getTime()));
+            params.add(new Timestamp(query.getBeforeDate().getTime()));
+            params.add(query.getBeforeId());
+        }
+        if (query.getFrom() != null) {
+            sql.append(" AND s.sale_date >= ?");
+            params.add(new Timestamp(query.getFrom().getTime()));
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND s.sale_date < ?");
+            params.add(new Timestamp(query.getTo().getTime()));
+        }
+        if (query.getCategory() != null) {
+            sql.append(" AND p.category = ?");
+            params.add(query.getCategory());
+        }
+        sql.append(" ORDER BY s.sale_date DESC, s.id DESC LIMIT ?");
+        params.add(limit + 1);
+
+        List<SaleRecord> list = new ArrayList<>();
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String name = rs.getString("product_name");
+                    if (name == null) {
+                        name = rs.getString("current_name");
+                    }
+                    list.add(new SaleRecord(
+                            rs.getInt("id"),
+                            rs.getInt("product_id"),
+                            name != null ? name : "Unknown",
+                            rs.getInt("quantity"),
+                            rs.getDouble("total_price"),
+                            rs.getTimestamp("sale_date")));
+                }
+            }
+        }
+        return toPage(list, limit);
+    }
+
+    /**
+     * Revenue, units and transaction count for sales in [from, to); null bounds are open
+     */
+    @Override
+    public SalesSummary getSalesSummary(Date from, Date to) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT COALESCE(SUM(s.total_price), 0), COALESCE(SUM(s.quantity), 0), "
+                + "COALESCE(SUM(s.transactions), 0) FROM " + salesSource(from, to, true, params);
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return new SalesSummary(rs.getDouble(1), rs.getLong(2), rs.getLong(3));
+            }
+        }
+    }
+
+    /**
+     * Sales in [from, to) aggregated in SQL by product, category, day or hour.
+     * Categories are those the products have now, as with the raw sales rows.
+     */
+    @Override
+    public List<SalesAggregate> getSalesBreakdown(Date from, Date to, ReportGrouping grouping) throws SQLException {
+        String keyExpr;
+        String groupBy;
+        String orderBy;
+        switch (grouping) {
+            case PRODUCT:
+                keyExpr = "COALESCE(MAX(s.product_name), MAX(p.name), CONCAT('ID ', s.product_id))";
+                groupBy = "s.product_id";
+                orderBy = "revenue DESC";
+                break;
+            case CATEGORY:
+                keyExpr = "COALESCE(p.category, 'Uncategorized')";
+                groupBy = "p.category";
+                orderBy = "revenue DESC";
+                break;
+            case DAY:
+                keyExpr = "DATE_FORMAT(s.sale_date, '%Y-%m-%d')";
+                groupBy = "1";
+                orderBy = "1";
+                break;
+            case HOUR:
+                keyExpr = "DATE_FORMAT(s.sale_date, '%Y-%m-%d %H:00')";
+                groupBy = "1";
+                orderBy = "1";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown grouping " + grouping);
+        }
+
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT " + keyExpr + " AS report_key, SUM(s.quantity) AS units, "
+                + "SUM(s.total_price) AS revenue, SUM(s.transactions) AS transactions "
+                + "FROM " + salesSource(from, to, grouping != ReportGrouping.HOUR, params)
+                + " LEFT JOIN products p ON s.product_id = p.id"
+                + " GROUP BY " + groupBy + " ORDER BY " + orderBy;
+
+        List<SalesAggregate> list = new ArrayList<>();
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new SalesAggregate(
+                            rs.getString("report_key"),
+                            rs.getLong("units"),
+                            rs.getDouble("revenue"),
+                            rs.getLong("transactions")));
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Sales in [from, to) as a derived table s(product_id, product_name, sale_date,
+     * quantity, total_price, transactions). Whole days come from the daily rollup
+     * (if useDaily), whole hours from the hourly rollup, and only the partial hours
+     * at either end from the sales table, so the rows read grow with the length of
+     * the range rather than the number of sales in it. Buckets use the JVM's time
+     * zone on both the write and the read side.
+     */
+    private static String salesSource(Date from, Date to, boolean useDaily, List<Object> params) {
+        List<String> parts = new ArrayList<>();
+        Date firstHour = from == null ? null : ceil(from, Calendar.HOUR_OF_DAY);
+        Date lastHour = to == null ? null : floor(to, Calendar.HOUR_OF_DAY);
+        if (firstHour != null && lastHour != null && !firstHour.before(lastHour)) {
+            // Less than an hour boundary to boundary: nothing to gain from the rollups
+            parts.add(rawSales(from, to, params));
+            return "(" + parts.get(0) + ") s";
+        }
+        if (from != null && from.before(firstHour)) {
+            parts.add(rawSales(from, firstHour, params));
+        }
+        Date firstDay = firstHour == null ? null : ceil(firstHour, Calendar.DAY_OF_MONTH);
+        Date lastDay = lastHour == null ? null : floor(lastHour, Calendar.DAY_OF_MONTH);
+        if (!useDaily || (firstDay != null && lastDay != null && !firstDay.before(lastDay))) {
+            parts.add(rolledUpSales("sales_rollup_hourly", firstHour, lastHour, params));
+        } else {
+            if (firstHour != null && firstHour.before(firstDay)) {
+                parts.add(rolledUpSales("sales_rollup_hourly", firstHour, firstDay, params));
+            }
+            parts.add(rolledUpSales("sales_rollup_daily", firstDay, lastDay, params));
+            if (lastHour != null && lastDay.before(lastHour)) {
+                parts.add(rolledUpSales("sales_rollup_hourly", lastDay, lastHour, params));
+            }
+        }
+        if (to != null && lastHour.before(to)) {
+            parts.add(rawSales(lastHour, to, params));
+        }
+        return "(" + String.join(" UNION ALL ", parts) + ") s";
+    }
+
+    private static String rawSales(Date from, Date to, List<Object> params) {
+        return "SELECT s.product_id, s.product_name, s.sale_date, s.quantity, s.total_price, 1 AS transactions "
+                + "FROM sales s" + rangeClause("s.sale_date", from, to, params);
+    }
+
+    // Named like the sales columns: a UNION takes its column names from its first SELECT
+    private static String rolledUpSales(String table, Date from, Date to, List<Object> params) {
+        return "SELECT r.product_id, r.product_name, r.bucket AS sale_date, r.units AS quantity, "
+                + "r.revenue AS total_price, r.transactions "
+                + "FROM " + table + " r" + rangeClause("r.bucket", from, to, params);
+    }
+
+    private static String rangeClause(String column, Date from, Date to, List<Object> params) {
+        StringBuilder clause = new StringBuilder(" WHERE 1=1");
+        if (from != null) {
+            clause.append(" AND ").append(column).append(" >= ?");
+            params.add(new Timestamp(from.getTime()));
+        }
+        if (to != null) {
+            clause.append(" AND ").append(column).append(" < ?");
+            params.add(new Timestamp(to.getTime()));
+        }
+        return clause.toString();
+    }
+
+    // Start of the hour or day containing date
+    private static Date floor(Date date, int field) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(date);
+        if (field == Calendar.DAY_OF_MONTH) {
+            cal.set(Calendar.HOUR_OF_DAY, 0);
+        }
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        return cal.getTime();
+    }
+
+    // Start of the first hour or day at or after date
+    private static Date ceil(Date date, int field) {
+        Date floor = floor(date, field);
+        if (!floor.before(date)) {
+            return floor;
+        }
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(floor);
+        cal.add(field, 1);
+        return cal.getTime();
+    }
+
+    private static int clampPageSize(int pageSize) {
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
+
+    private static <T extends Serializable> Page<T> toPage(List<T> rows, int limit) {
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = new ArrayList<>(rows.subList(0, limit));
+        }
+        return new Page<>(rows, hasMore);
+    }
+
+    @Override
+    public void resetDatabase() throws SQLException {
         try (Connection conn = getConnection();
                 Statement stmt = conn.createStatement()) {
+            int maxId;
+            try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM products")) {
+                rs.next();
+                maxId = rs.getInt(1);
+            }
+            long version = nextVersions(conn, maxId);
+            conn.setAutoCommit(false);
+            try {
+                tombstoneAllProducts(conn, version);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
             // Truncate both tables to reset data and IDs
             stmt.executeUpdate("TRUNCATE TABLE sales");
+            stmt.executeUpdate("TRUNCATE TABLE sales_rollup_hourly");
+            stmt.executeUpdate("TRUNCATE TABLE sales_rollup_daily");
             stmt.executeUpdate("SET FOREIGN_KEY_CHECKS = 0"); // Disable checks to truncate products if needed
             stmt.executeUpdate("TRUNCATE TABLE products");
             stmt.executeUpdate("SET FOREIGN_KEY_CHECKS = 1");
@@ -230,38 +1046,32 @@ public class DatabaseHandler {
         }
     }
 
-   
-
-    /**
-     * Hash password using SHA-256
-     */
-    private String hashPassword(String password) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(password.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1)
-                    hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error hashing password", e);
+    // Leave a tombstone for every product so synced clients drop them too; version is
+    // the first of maxId versions taken beforehand, one per possible id
+    private void tombstoneAllProducts(Connection conn, long version) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO product_tombstones (product_id, version) SELECT id, ? + id FROM products "
+                        + "ON DUPLICATE KEY UPDATE version = VALUES(version)")) {
+            pstmt.setLong(1, version - 1);
+            pstmt.executeUpdate();
         }
     }
 
+   
+
     /**
      * Register a new user
      */
-    public synchronized boolean registerUser(User user) throws SQLException {
-        String sql = "INSERT INTO users (username, email, password, full_name) VALUES (?, ?, ?, ?)";
+    @Override
+    public boolean registerUser(User user) throws SQLException {
+        // The first account manages the store; later ones start as cashiers
+        String sql = "INSERT INTO users (username, email, password, full_name, role) "
+                + "SELECT ?, ?, ?, ?, IF(EXISTS (SELECT 1 FROM users), 'CASHIER', 'MANAGER')";
         try (Connection conn = getConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, user.getUsername());
             pstmt.setString(2, user.getEmail());
-            pstmt.setString(3, hashPassword(user.getPassword()));
+            pstmt.setString(3, PasswordHasher.hash(user.getPassword()));
             pstmt.setString(4, user.getFullName());
             pstmt.executeUpdate();
             return true;
@@ -277,20 +1087,23 @@ public class DatabaseHandler {
     /**
      * Authenticate user login
      */
-    public synchronized User authenticateUser(String username, String password) throws SQLException {
+    @Override
+    public User authenticateUser(String username, String password) throws SQLException {
         String sql = "SELECT * FROM users WHERE username = ? AND password = ?";
         try (Connection conn = getConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
-            pstmt.setString(2, hashPassword(password));
+            pstmt.setString(2, PasswordHasher.hash(password));
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return new User(
+                    User user = new User(
                             rs.getInt("id"),
                             rs.getString("username"),
                             rs.getString("email"),
                             "", // Don't return password
                             rs.getString("full_name"));
+                    user.setRole(Role.fromName(rs.getString("role")));
+                    return user;
                 }
             }
         }
@@ -298,36 +1111,39 @@ public class DatabaseHandler {
     }
 
     /**
-     * Check if username exists
+     * Check whether a username or email is taken with a single query
      */
-    public synchronized boolean usernameExists(String username) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM users WHERE username = ?";
+    @Override
+    public boolean userExists(String username, String email) throws SQLException {
+        String sql = "SELECT 1 FROM users WHERE username = ? OR email = ? LIMIT 1";
         try (Connection conn = getConnection();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
+            pstmt.setString(2, email);
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
+                return rs.next();
             }
         }
-        return false;
     }
 
-    /**
-     * Check if email exists
-     */
-    public synchronized boolean emailExists(String email) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM users WHERE email = ?";
+    @Override
+    public List<User> getAllUsers() throws SQLException {
+        List<User> list = new ArrayList<>();
+        String sql = "SELECT id, username, email, full_name, role FROM users";
         try (Connection conn = getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, email);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                User user = new User(
+                        rs.getInt("id"),
+                        rs.getString("username"),
+                        rs.getString("email"),
+                        "",
+                        rs.getString("full_name"));
+                user.setRole(Role.fromName(rs.getString("role")));
+                list.add(user);
             }
         }
-        return false;
+        return list;
     }
 }
@@ -0,0 +1,102 @@
+package com.inventory.server;
+
+import com.inventory.common.CatalogEvent;
+import com.inventory.common.Notice;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Merges the per-product events a busy product produces into one per window
+ * before they are fanned out to clients.
+ *
+ * Within a window, stock changes keep only the latest level per product, sale
+ * notices for a product add up into one, and low-stock notices keep the latest.
+ * Every other event passes straight through, but first flushes whatever is
+ * pending, so events still leave in the order they happened for each product.
+ * Events are handed on under the coalescer's lock, so the sinks see them in
+ * the order they leave and can number catalog events in that order.
+ */
+class EventCoalescer {
+    private final Consumer<CatalogEvent> catalogSink;
+    private final Consumer<Notice> noticeSink;
+
+    private final Object lock = new Object();
+    private final Map<Integer, CatalogEvent> stockChanges = new LinkedHashMap<>();
+    private final Map<Integer, Notice> sales = new LinkedHashMap<>();
+    private final Map<Integer, Notice> lowStock = new LinkedHashMap<>();
+
+    EventCoalescer(long windowMillis, Consumer<CatalogEvent> catalogSink, Consumer<Notice> noticeSink) {
+        this.catalogSink = catalogSink;
+        this.noticeSink = noticeSink;
+        Thread flusher = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(windowMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                flush();
+            }
+        }, "event-coalescer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    void publish(CatalogEvent event) {
+        synchronized (lock) {
+            if (event.getType() == CatalogEvent.Type.STOCK_CHANGED) {
+                stockChanges.put(event.getProductId(), event);
+                return;
+            }
+            flushLocked();
+            catalogSink.accept(event);
+        }
+    }
+
+    void broadcast(Notice notice) {
+        synchronized (lock) {
+            switch (notice.getKind()) {
+                case SALE:
+                    sales.merge(notice.getProductId(), notice, EventCoalescer::addSales);
+                    break;
+                case LOW_STOCK:
+                    lowStock.put(notice.getProductId(), notice);
+                    break;
+                default:
+                    flushNoticesLocked();
+                    noticeSink.accept(notice);
+            }
+        }
+    }
+
+    void flush() {
+        synchronized (lock) {
+            flushLocked();
+            flushNoticesLocked();
+        }
+    }
+
+    private void flushLocked() {
+        for (CatalogEvent event : stockChanges.values()) {
+            catalogSink.accept(event);
+        }
+        stockChanges.clear();
+    }
+
+    // Stock alerts first, then sales, each in order of the product's first event in the window
+    private void flushNoticesLocked() {
+        lowStock.values().forEach(noticeSink);
+        sales.values().forEach(noticeSink);
+        lowStock.clear();
+        sales.clear();
+    }
+
+    // Keeps the seller only if every sale merged in was theirs
+    private static Notice addSales(Notice a, Notice b) {
+        return new Notice(Notice.Kind.SALE, a.getProductId(), a.getQuantity() + b.getQuantity(),
+                a.getAmount() + b.getAmount(), b.getTimestamp(),
+                Objects.equals(a.getDetail(), b.getDetail()) ? a.getDetail() : null);
+    }
+}
@@ -0,0 +1,467 @@
+package com.inventory.server;
+
+import com.inventory.common.CartLine;
+import com.inventory.common.CartLineResult;
+import com.inventory.common.CartResult;
+import com.inventory.common.Page;
+import com.inventory.common.Product;
+import com.inventory.common.ProductChanges;
+import com.inventory.common.ReportGrouping;
+import com.inventory.common.SaleRecord;
+import com.inventory.common.SalesAggregate;
+import com.inventory.common.SalesQuery;
+import com.inventory.common.SalesSummary;
+import com.inventory.common.User;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hot-item mode in front of the MySQL store, for products that take most of
+ * the sales at once (flash sales, promotions).
+ *
+ * Stock for each hot product lives in a StripedStockCounter, so its sales do
+ * not queue on the product's row lock. Every sale taken from a counter is made
+ * durable in the SalesJournal before it is acknowledged, and a background task
+ * writes journaled sales to MySQL in batches every flushMillis. Until then the
+ * database stock and sales of hot products lag behind; product reads are
+ * patched with the live counter values, sales reports catch up at the next
+ * flush.
+ *
+ * Writes that set stock directly (update, import, reset) close the product's
+ * counter, flush its sales, apply the write and reload the counter from the
+ * database. Carts reserve hot lines from the counters and let the database
+ * transaction handle the rest, so database stock stays ahead of the counters.
+ */
+public class HotStockStore implements InventoryStore {
+    private final DatabaseHandler db;
+    private final int buckets;
+    private final Set<Integer> hotIds;
+    private final Map<Integer, StripedStockCounter> counters = new ConcurrentHashMap<>();
+    // Held while a product's counter is swapped out
+    private final StripedLock swapLocks = new StripedLock(64);
+    private final SalesJournal journal;
+    private final ScheduledExecutorService flusher;
+
+    public HotStockStore(DatabaseHandler db, Set<Integer> hotIds, int buckets, long flushMillis, Path journalPath)
+            throws IOException, SQLException {
+        this.db = db;
+        this.buckets = buckets;
+        this.hotIds = new TreeSet<>(hotIds);
+        this.journal = new SalesJournal(journalPath, db.getJournalCheckpoint());
+        // Sales left in the journal by a crash must reach the database before stock is read from it
+        flush();
+        for (int id : this.hotIds) {
+            load(id);
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hot-stock-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (SQLException e) {
+                e.printStackTrace(); // entries stay in the journal and are retried
+            }
+        }, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        System.out.println("Hot stock mode for products " + this.hotIds + " (" + buckets + " buckets each)");
+    }
+
+    /**
+     * Write journaled sales to the database and drop them from the journal
+     */
+    synchronized void flush() throws SQLException {
+        List<SalesJournal.Entry> entries = journal.unflushed();
+        if (entries.isEmpty()) {
+            return;
+        }
+        db.applyJournaledSales(entries);
+        try {
+            journal.checkpoint(entries.get(entries.size() - 1).seq);
+        } catch (IOException e) {
+            // The database checkpoint already covers these entries, so a replay skips them
+            e.printStackTrace();
+        }
+    }
+
+    private void load(int id) throws SQLException {
+        Product p = db.getProduct(id);
+        if (p == null) {
+            counters.remove(id);
+        } else {
+            counters.put(id, new StripedStockCounter(buckets, p.getQuantity()));
+        }
+    }
+
+    /**
+     * Close the counters of the given hot products and flush their sales, run
+     * the write against the database, then reload the counters from it
+     */
+    private <T> T withCountersSettled(Set<Integer> ids, SqlAction<T> write) throws SQLException {
+        List<ReentrantLock> locks = new ArrayList<>();
+        for (int id : new TreeSet<>(ids)) {
+            ReentrantLock lock = swapLocks.get(id);
+            lock.lock();
+            locks.add(lock);
+        }
+        try {
+            for (int id : ids) {
+                StripedStockCounter counter = counters.get(id);
+                if (counter != null) {
+                    counter.close();
+                }
+            }
+            flush();
+            try {
+                return write.run();
+            } finally {
+                for (int id : ids) {
+                    load(id);
+                }
+            }
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    private interface SqlAction<T> {
+        T run() throws SQLException;
+    }
+
+    private Set<Integer> hotAmong(List<Product> products) {
+        Set<Integer> ids = new TreeSet<>();
+        for (Product p : products) {
+            if (hotIds.contains(p.getId())) {
+                ids.add(p.getId());
+            }
+        }
+        return ids;
+    }
+
+    // Wait until a counter being swapped out has been replaced
+    private void awaitSwap(int id) {
+        ReentrantLock lock = swapLocks.get(id);
+        lock.lock();
+        lock.unlock();
+    }
+
+    @Override
+    public int liveStock(int productId) {
+        StripedStockCounter counter = counters.get(productId);
+        if (counter == null || counter.isClosed()) {
+            return -1;
+        }
+        return (int) counter.available();
+    }
+
+    @Override
+    public int processSale(int productId, int quantity) throws SQLException {
+        while (true) {
+            StripedStockCounter counter = counters.get(productId);
+            if (counter == null) {
+                return db.processSale(productId, quantity);
+            }
+            if (!counter.enter()) {
+                awaitSwap(productId);
+                continue;
+            }
+            try {
+                if (quantity <= 0) {
+                    return -1;
+                }
+                StripedStockCounter.Result result = counter.tryTake(quantity);
+                if (result == StripedStockCounter.Result.INSUFFICIENT) {
+                    return -1;
+                }
+                if (result == StripedStockCounter.Result.TAKEN) {
+                    try {
+                        journal.append(productId, quantity);
+                        // The database lags for hot products; the counter is the stock
+                        return (int) counter.available();
+                    } catch (IOException e) {
+                        counter.giveBack(quantity);
+                        throw new SQLException("Could not journal sale", e);
+                    }
+                }
+            } finally {
+                counter.exit();
+            }
+        }
+    }
+
+    /**
+     * Hot lines are reserved from their counters first; the database transaction
+     * then sells the whole cart, and the reservations are returned if it fails.
+     */
+    @Override
+    public CartResult processCart(List<CartLine> lines) throws SQLException {
+        Map<Integer, Integer> requested = new TreeMap<>();
+        for (CartLine line : lines) {
+            requested.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+
+        retry: while (true) {
+            Map<Integer, StripedStockCounter> entered = new TreeMap<>();
+            Map<Integer, Integer> taken = new TreeMap<>();
+            try {
+                for (Map.Entry<Integer, Integer> entry : requested.entrySet()) {
+                    StripedStockCounter counter = counters.get(entry.getKey());
+                    if (counter == null) {
+                        continue;
+                    }
+                    if (!counter.enter()) {
+                        giveBack(entered, taken);
+                        exitAll(entered);
+                        entered.clear();
+                        awaitSwap(entry.getKey());
+                        continue retry;
+                    }
+                    entered.put(entry.getKey(), counter);
+                    if (entry.getValue() <= 0) {
+                        continue; // the database rejects it with the right message
+                    }
+                    if (counter.tryTake(entry.getValue()) != StripedStockCounter.Result.TAKEN) {
+                        giveBack(entered, taken);
+                        return rejectCart(lines, requested);
+                    }
+                    taken.put(entry.getKey(), entry.getValue());
+                }
+                if (entered.isEmpty()) {
+                    return db.processCart(lines);
+                }
+
+                CartResult result;
+                try {
+                    result = db.processCart(lines);
+                } catch (SQLException e) {
+                    giveBack(entered, taken);
+                    throw e;
+                }
+                if (!result.isSuccess()) {
+                    giveBack(entered, taken);
+                }
+                // The database's remaining stock for hot lines lags; report the counter instead
+                List<CartLineResult> patched = new ArrayList<>();
+                for (CartLineResult r : result.getLines()) {
+                    StripedStockCounter counter = entered.get(r.getProductId());
+                    patched.add(counter == null ? r : new CartLineResult(r.getProductId(), r.getProductName(),
+                            r.getQuantity(), r.getUnitPrice(), (int) counter.available(), r.isSuccess(),
+                            r.getMessage()));
+                }
+                return new CartResult(result.getOrderId(), result.isSuccess(), patched);
+            } finally {
+                exitAll(entered);
+            }
+        }
+    }
+
+    private static void giveBack(Map<Integer, StripedStockCounter> entered, Map<Integer, Integer> taken) {
+        for (Map.Entry<Integer, Integer> entry : taken.entrySet()) {
+            entered.get(entry.getKey()).giveBack(entry.getValue());
+        }
+        taken.clear();
+    }
+
+    private static void exitAll(Map<Integer, StripedStockCounter> entered) {
+        for (StripedStockCounter counter : entered.values()) {
+            counter.exit();
+        }
+    }
+
+    // A hot line ran short; describe every line the way the database would
+    private CartResult rejectCart(List<CartLine> lines, Map<Integer, Integer> requested) throws SQLException {
+        Map<Integer, Product> products = new TreeMap<>();
+        for (int id : requested.keySet()) {
+            Product p = getProduct(id);
+            if (p != null) {
+                products.put(id, p);
+            }
+        }
+        List<CartLineResult> results = new ArrayList<>();
+        for (CartLine line : lines) {
+            Product p = products.get(line.getProductId());
+            String error = null;
+            if (line.getQuantity() <= 0) {
+                error = "Invalid quantity";
+            } else if (p == null) {
+                error = "Product not found";
+            } else if (p.getQuantity() < requested.get(line.getProductId())) {
+                error = "Insufficient stock (available: " + p.getQuantity() + ")";
+            }
+            results.add(new CartLineResult(line.getProductId(), p == null ? null : p.getName(),
+                    line.getQuantity(), p == null ? 0 : p.getPrice(), p == null ? 0 : p.getQuantity(),
+                    error == null, error == null ? "OK" : error));
+        }
+        return new CartResult(0, false, results);
+    }
+
+    // Products: reads show live counter stock, writes settle the counters first
+
+    private Product withLiveStock(Product p) {
+        if (p == null) {
+            return null;
+        }
+        StripedStockCounter counter = counters.get(p.getId());
+        if (counter == null || counter.isClosed()) {
+            return p;
+        }
+        return p.withQuantity((int) counter.available());
+    }
+
+    private List<Product> withLiveStock(List<Product> list) {
+        List<Product> out = new ArrayList<>(list.size());
+        for (Product p : list) {
+            out.add(withLiveStock(p));
+        }
+        return out;
+    }
+
+    @Override
+    public int addProduct(Product p) throws SQLException {
+        return db.addProduct(p);
+    }
+
+    @Override
+    public void updateProduct(Product p) throws SQLException {
+        if (!hotIds.contains(p.getId())) {
+            db.updateProduct(p);
+            return;
+        }
+        withCountersSettled(Set.of(p.getId()), () -> {
+            db.updateProduct(p);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteProduct(int id) throws SQLException {
+        if (!hotIds.contains(id)) {
+            db.deleteProduct(id);
+            return;
+        }
+        withCountersSettled(Set.of(id), () -> {
+            db.deleteProduct(id);
+            return null;
+        });
+    }
+
+    @Override
+    public void reserveProductIds(int maxId) throws SQLException {
+        db.reserveProductIds(maxId);
+    }
+
+    @Override
+    public int importProducts(List<Product> products) throws SQLException {
+        Set<Integer> hot = hotAmong(products);
+        if (hot.isEmpty()) {
+            return db.importProducts(products);
+        }
+        return withCountersSettled(hot, () -> db.importProducts(products));
+    }
+
+    @Override
+    public List<Product> getAllProducts() throws SQLException {
+        return withLiveStock(db.getAllProducts());
+    }
+
+    @Override
+    public Product getProduct(int id) throws SQLException {
+        return withLiveStock(db.getProduct(id));
+    }
+
+    @Override
+    public Page<Product> getProductsPage(int afterId, int pageSize, String category) throws SQLException {
+        Page<Product> page = db.getProductsPage(afterId, pageSize, category);
+        return new Page<>(withLiveStock(page.getItems()), page.hasMore());
+    }
+
+    @Override
+    public ProductChanges getProductsChangedSince(long sinceVersion, int maxRows) throws SQLException {
+        ProductChanges changes = db.getProductsChangedSince(sinceVersion, maxRows);
+        return new ProductChanges(withLiveStock(changes.getChanged()), changes.getDeletedIds(),
+                changes.getVersion(), changes.hasMore());
+    }
+
+    // Sales reads see journaled sales once they are flushed
+
+    @Override
+    public List<SaleRecord> getSales() throws SQLException {
+        return db.getSales();
+    }
+
+    @Override
+    public Page<SaleRecord> getSalesPage(SalesQuery query) throws SQLException {
+        return db.getSalesPage(query);
+    }
+
+    @Override
+    public SalesSummary getSalesSummary(Date from, Date to) throws SQLException {
+        return db.getSalesSummary(from, to);
+    }
+
+    @Override
+    public List<SalesAggregate> getSalesBreakdown(Date from, Date to, ReportGrouping grouping) throws SQLException {
+        return db.getSalesBreakdown(from, to, grouping);
+    }
+
+    @Override
+    public void resetDatabase() throws SQLException {
+        withCountersSettled(hotIds, () -> {
+            db.resetDatabase();
+            return null;
+        });
+    }
+
+    // Users
+
+    @Override
+    public boolean registerUser(User user) throws SQLException {
+        return db.registerUser(user);
+    }
+
+    @Override
+    public User authenticateUser(String username, String password) throws SQLException {
+        return db.authenticateUser(username, password);
+    }
+
+    @Override
+    public boolean userExists(String username, String email) throws SQLException {
+        return db.userExists(username, email);
+    }
+
+    @Override
+    public List<User> getAllUsers() throws SQLException {
+        return db.getAllUsers();
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            e.printStackTrace(); // replayed from the journal on next start
+        }
+        journal.close();
+        db.close();
+    }
+}
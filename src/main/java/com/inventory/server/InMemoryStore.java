@@ -0,0 +1,553 @@
+package com.inventory.server;
+
+import com.inventory.common.CartLine;
+import com.inventory.common.CartLineResult;
+import com.inventory.common.CartResult;
+import com.inventory.common.Page;
+import com.inventory.common.Product;
+import com.inventory.common.ProductChanges;
+import com.inventory.common.ReportGrouping;
+import com.inventory.common.Role;
+import com.inventory.common.SaleRecord;
+import com.inventory.common.SalesAggregate;
+import com.inventory.common.SalesQuery;
+import com.inventory.common.SalesSummary;
+import com.inventory.common.User;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * InventoryStore kept entirely in process, for load tests, benchmarks and
+ * single-till deployments without MySQL. Nothing survives a restart.
+ *
+ * Stock is an atomic counter per product, so sales never take a lock. Sales
+ * are appended to a list in id order, which is also sale-date order.
+ */
+public class InMemoryStore implements InventoryStore {
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ConcurrentSkipListMap<Integer, ProductRow> products = new ConcurrentSkipListMap<>();
+    private final AtomicInteger nextProductId = new AtomicInteger(1);
+    // Delta sync: each row carries the version of its last change, deletions leave a tombstone
+    private final ChangeClock changeClock = new ChangeClock(0);
+    private final Map<Integer, Long> tombstones = new ConcurrentHashMap<>();
+
+    // Append-only; guarded by its own monitor so id assignment and append happen together
+    private final List<SaleRecord> sales = new ArrayList<>();
+    private final AtomicInteger nextOrderId = new AtomicInteger(1);
+
+    private final Map<String, UserRow> usersByName = new ConcurrentHashMap<>();
+    private final Map<String, String> emailOwners = new ConcurrentHashMap<>();
+    private final AtomicInteger nextUserId = new AtomicInteger(1);
+
+    private static class ProductRow {
+        final int id;
+        volatile String name;
+        volatile double price;
+        volatile String category;
+        volatile long version;
+        volatile int reorderLevel = Product.DEFAULT_REORDER_LEVEL;
+        final AtomicInteger stock;
+
+        ProductRow(int id, String name, double price, int quantity, String category) {
+            this.id = id;
+            this.name = name;
+            this.price = price;
+            this.category = category;
+            this.stock = new AtomicInteger(quantity);
+        }
+
+        Product toProduct() {
+            Product p = new Product(id, name, price, stock.get(), category);
+            p.setReorderLevel(reorderLevel);
+            return p;
+        }
+
+        // Stock left after taking quantity, or -1 if there was not enough
+        int tryTake(int quantity) {
+            while (true) {
+                int current = stock.get();
+                if (current < quantity) {
+                    return -1;
+                }
+                if (stock.compareAndSet(current, current - quantity)) {
+                    return current - quantity;
+                }
+            }
+        }
+    }
+
+    private static class UserRow {
+        final User user;
+        final String passwordHash;
+
+        UserRow(User user, String passwordHash) {
+            this.user = user;
+            this.passwordHash = passwordHash;
+        }
+    }
+
+    @Override
+    public int addProduct(Product p) {
+        long version = changeClock.begin(1);
+        try {
+            return insert(p, version);
+        } finally {
+            changeClock.end(version);
+        }
+    }
+
+    private int insert(Product p, long version) {
+        int id = nextProductId.getAndIncrement();
+        ProductRow row = new ProductRow(id, p.getName(), p.getPrice(), p.getQuantity(), p.getCategory());
+        row.reorderLevel = p.getReorderLevel();
+        row.version = version;
+        products.put(id, row);
+        return id;
+    }
+
+    @Override
+    public void updateProduct(Product p) {
+        ProductRow row = products.get(p.getId());
+        if (row != null) {
+            long version = changeClock.begin(1);
+            row.name = p.getName();
+            row.price = p.getPrice();
+            row.category = p.getCategory();
+            row.stock.set(p.getQuantity());
+            row.reorderLevel = p.getReorderLevel();
+            row.version = version;
+            changeClock.end(version);
+        }
+    }
+
+    @Override
+    public void deleteProduct(int id) {
+        long version = changeClock.begin(1);
+        if (products.remove(id) != null) {
+            tombstones.put(id, version);
+        }
+        changeClock.end(version);
+    }
+
+    /**
+     * Rows with an id are written before the id-less ones, so a new id handed to
+     * an insert can never be one that a later row of the chunk asks for.
+     */
+    @Override
+    public void reserveProductIds(int maxId) {
+        nextProductId.accumulateAndGet(maxId + 1, Math::max);
+    }
+
+    @Override
+    public int importProducts(List<Product> list) {
+        long version = changeClock.begin(list.size());
+        try {
+            for (int i = 0; i < list.size(); i++) {
+                Product p = list.get(i);
+                long rowVersion = version + i;
+                if (p.getId() > 0) {
+                    products.compute(p.getId(), (id, row) -> {
+                        if (row == null) {
+                            nextProductId.accumulateAndGet(id + 1, Math::max);
+                            row = new ProductRow(id, p.getName(), p.getPrice(), p.getQuantity(), p.getCategory());
+                        } else {
+                            row.name = p.getName();
+                            row.price = p.getPrice();
+                            row.category = p.getCategory();
+                            row.stock.set(p.getQuantity());
+                        }
+                        row.version = rowVersion;
+                        return row;
+                    });
+                }
+            }
+            for (int i = 0; i < list.size(); i++) {
+                if (list.get(i).getId() <= 0) {
+                    insert(list.get(i), version + i);
+                }
+            }
+        } finally {
+            changeClock.end(version);
+        }
+        return list.size();
+    }
+
+    @Override
+    public List<Product> getAllProducts() {
+        List<Product> list = new ArrayList<>();
+        for (ProductRow row : products.values()) {
+            list.add(row.toProduct());
+        }
+        return list;
+    }
+
+    @Override
+    public Product getProduct(int id) {
+        ProductRow row = products.get(id);
+        return row == null ? null : row.toProduct();
+    }
+
+    @Override
+    public Page<Product> getProductsPage(int afterId, int pageSize, String category) {
+        int limit = clampPageSize(pageSize);
+        List<Product> list = new ArrayList<>();
+        for (ProductRow row : products.tailMap(afterId, false).values()) {
+            if (category != null && !category.equals(row.category)) {
+                continue;
+            }
+            if (list.size() == limit) {
+                return new Page<>(list, true);
+            }
+            list.add(row.toProduct());
+        }
+        return new Page<>(list, false);
+    }
+
+    @Override
+    public ProductChanges getProductsChangedSince(long sinceVersion, int maxRows) {
+        int limit = clampPageSize(maxRows);
+        long watermark = changeClock.watermark();
+
+        // Versions are unique, so one sorted map orders rows and tombstones together
+        TreeMap<Long, Object> byVersion = new TreeMap<>();
+        for (ProductRow row : products.values()) {
+            long v = row.version;
+            if (v > sinceVersion && v <= watermark) {
+                byVersion.put(v, row.toProduct());
+            }
+        }
+        for (Map.Entry<Integer, Long> entry : tombstones.entrySet()) {
+            long v = entry.getValue();
+            if (v > sinceVersion && v <= watermark) {
+                byVersion.put(v, entry.getKey());
+            }
+        }
+
+        List<Product> changed = new ArrayList<>();
+        List<Integer> deleted = new ArrayList<>();
+        long lastVersion = sinceVersion;
+        for (Map.Entry<Long, Object> entry : byVersion.entrySet()) {
+            if (changed.size() + deleted.size() == limit) {
+                return new ProductChanges(changed, deleted, lastVersion, true);
+            }
+            if (entry.getValue() instanceof Product) {
+                changed.add((Product) entry.getValue());
+            } else {
+                deleted.add((Integer) entry.getValue());
+            }
+            lastVersion = entry.getKey();
+        }
+        return new ProductChanges(changed, deleted, Math.max(watermark, sinceVersion), false);
+    }
+
+    @Override
+    public int liveStock(int productId) {
+        return -1;
+    }
+
+    @Override
+    public int processSale(int productId, int quantity) {
+        ProductRow row = products.get(productId);
+        if (row == null || quantity <= 0) {
+            return -1;
+        }
+        long version = changeClock.begin(1);
+        int left;
+        try {
+            left = row.tryTake(quantity);
+            if (left < 0) {
+                return -1;
+            }
+            row.version = version;
+        } finally {
+            changeClock.end(version);
+        }
+        appendSale(row, quantity);
+        return left;
+    }
+
+    /**
+     * Take stock for every line or for none. Counters are taken in id order and
+     * given back if a later line falls short, so a concurrent reader may briefly
+     * see stock that is about to be restored.
+     */
+    @Override
+    public CartResult processCart(List<CartLine> lines) {
+        Map<Integer, Integer> requested = new TreeMap<>();
+        for (CartLine line : lines) {
+            requested.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        if (requested.isEmpty()) {
+            return new CartResult(0, false, new ArrayList<>());
+        }
+
+        Map<Integer, ProductRow> rows = new HashMap<>();
+        Map<Integer, Integer> taken = new LinkedHashMap<>();
+        Map<Integer, Integer> stockAfter = new HashMap<>();
+        Map<Integer, Integer> stockBefore = new HashMap<>();
+        // Lines whose stock another sale took between the read and the take
+        Map<Integer, Integer> lostRace = new HashMap<>();
+        boolean allOk = true;
+        for (Map.Entry<Integer, Integer> entry : requested.entrySet()) {
+            ProductRow row = products.get(entry.getKey());
+            if (row == null) {
+                allOk = false;
+                continue;
+            }
+            rows.put(entry.getKey(), row);
+            stockBefore.put(entry.getKey(), row.stock.get());
+            if (!allOk || entry.getValue() <= 0) {
+                allOk = false;
+                continue;
+            }
+            int left = row.tryTake(entry.getValue());
+            if (left >= 0) {
+                taken.put(entry.getKey(), entry.getValue());
+                stockAfter.put(entry.getKey(), left);
+            } else {
+                lostRace.put(entry.getKey(), row.stock.get());
+                allOk = false;
+            }
+        }
+
+        List<CartLineResult> results = new ArrayList<>();
+        for (CartLine line : lines) {
+            ProductRow row = rows.get(line.getProductId());
+            String error = null;
+            if (line.getQuantity() <= 0) {
+                error = "Invalid quantity";
+            } else if (row == null) {
+                error = "Product not found";
+            } else if (stockBefore.get(line.getProductId()) < requested.get(line.getProductId())) {
+                error = "Insufficient stock (available: " + stockBefore.get(line.getProductId()) + ")";
+            } else if (lostRace.containsKey(line.getProductId())) {
+                error = "Insufficient stock (available: " + lostRace.get(line.getProductId()) + ")";
+            }
+            int left = row == null ? 0 : stockAfter.getOrDefault(line.getProductId(),
+                    stockBefore.get(line.getProductId()) - requested.get(line.getProductId()));
+            results.add(new CartLineResult(line.getProductId(), row == null ? null : row.name,
+                    line.getQuantity(), row == null ? 0 : row.price, row == null ? 0 : left,
+                    error == null, error == null ? "OK" : error));
+        }
+
+        if (!allOk || results.stream().anyMatch(r -> !r.isSuccess())) {
+            for (Map.Entry<Integer, Integer> entry : taken.entrySet()) {
+                rows.get(entry.getKey()).stock.addAndGet(entry.getValue());
+            }
+            return new CartResult(0, false, results);
+        }
+
+        long version = changeClock.begin(taken.size());
+        for (int productId : taken.keySet()) {
+            rows.get(productId).version = version++;
+        }
+        changeClock.end(version - taken.size());
+
+        int orderId = nextOrderId.getAndIncrement();
+        for (CartLine line : lines) {
+            appendSale(rows.get(line.getProductId()), line.getQuantity());
+        }
+        return new CartResult(orderId, true, results);
+    }
+
+    private void appendSale(ProductRow row, int quantity) {
+        synchronized (sales) {
+            sales.add(new SaleRecord(sales.size() + 1, row.id, row.name, quantity,
+                    row.price * quantity, new Date()));
+        }
+    }
+
+    private List<SaleRecord> salesSnapshot() {
+        synchronized (sales) {
+            return new ArrayList<>(sales);
+        }
+    }
+
+    @Override
+    public List<SaleRecord> getSales() {
+        List<SaleRecord> list = salesSnapshot();
+        Collections.reverse(list);
+        return list;
+    }
+
+    @Override
+    public Page<SaleRecord> getSalesPage(SalesQuery query) {
+        int limit = clampPageSize(query.getPageSize());
+        List<SaleRecord> list = new ArrayList<>();
+        synchronized (sales) {
+            // Sale ids are list positions + 1, so the cursor maps straight to an index
+            int start = query.getBeforeDate() == null ? sales.size() - 1
+                    : Math.min(query.getBeforeId() - 2, sales.size() - 1);
+            for (int i = start; i >= 0; i--) {
+                SaleRecord sale = sales.get(i);
+                if (query.getFrom() != null && sale.getSaleDate().before(query.getFrom())) {
+                    break; // everything further back is older still
+                }
+                if (query.getTo() != null && !sale.getSaleDate().before(query.getTo())) {
+                    continue;
+                }
+                if (query.getCategory() != null && !query.getCategory().equals(categoryOf(sale))) {
+                    continue;
+                }
+                if (list.size() == limit) {
+                    return new Page<>(list, true);
+                }
+                list.add(sale);
+            }
+        }
+        return new Page<>(list, false);
+    }
+
+    @Override
+    public SalesSummary getSalesSummary(Date from, Date to) {
+        double revenue = 0;
+        long units = 0;
+        long count = 0;
+        for (SaleRecord sale : salesSnapshot()) {
+            if (inRange(sale, from, to)) {
+                revenue += sale.getTotalPrice();
+                units += sale.getQuantity();
+                count++;
+            }
+        }
+        return new SalesSummary(revenue, units, count);
+    }
+
+    @Override
+    public List<SalesAggregate> getSalesBreakdown(Date from, Date to, ReportGrouping grouping) {
+        SimpleDateFormat dayFormat = new SimpleDateFormat("yyyy-MM-dd");
+        SimpleDateFormat hourFormat = new SimpleDateFormat("yyyy-MM-dd HH:00");
+
+        Map<String, double[]> groups = new HashMap<>(); // units, revenue, transactions
+        for (SaleRecord sale : salesSnapshot()) {
+            if (!inRange(sale, from, to)) {
+                continue;
+            }
+            String key;
+            switch (grouping) {
+                case PRODUCT:
+                    key = sale.getProductName();
+                    break;
+                case CATEGORY:
+                    String category = categoryOf(sale);
+                    key = category != null ? category : "Uncategorized";
+                    break;
+                case DAY:
+                    key = dayFormat.format(sale.getSaleDate());
+                    break;
+                case HOUR:
+                    key = hourFormat.format(sale.getSaleDate());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown grouping " + grouping);
+            }
+            double[] acc = groups.computeIfAbsent(key, k -> new double[3]);
+            acc[0] += sale.getQuantity();
+            acc[1] += sale.getTotalPrice();
+            acc[2]++;
+        }
+
+        List<SalesAggregate> list = new ArrayList<>();
+        for (Map.Entry<String, double[]> entry : groups.entrySet()) {
+            double[] acc = entry.getValue();
+            list.add(new SalesAggregate(entry.getKey(), (long) acc[0], acc[1], (long) acc[2]));
+        }
+        if (grouping == ReportGrouping.DAY || grouping == ReportGrouping.HOUR) {
+            list.sort(Comparator.comparing(SalesAggregate::getKey));
+        } else {
+            list.sort(Comparator.comparingDouble(SalesAggregate::getRevenue).reversed());
+        }
+        return list;
+    }
+
+    private String categoryOf(SaleRecord sale) {
+        ProductRow row = products.get(sale.getProductId());
+        return row == null ? null : row.category;
+    }
+
+    private static boolean inRange(SaleRecord sale, Date from, Date to) {
+        return (from == null || !sale.getSaleDate().before(from))
+                && (to == null || sale.getSaleDate().before(to));
+    }
+
+    private static int clampPageSize(int pageSize) {
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
+
+    @Override
+    public void resetDatabase() {
+        synchronized (sales) {
+            sales.clear();
+        }
+        long version = changeClock.begin(products.size());
+        for (int id : products.keySet()) {
+            tombstones.put(id, version++);
+        }
+        changeClock.end(version - products.size());
+        products.clear();
+        nextProductId.set(1);
+        nextOrderId.set(1);
+        System.out.println("In-memory store reset complete.");
+    }
+
+    @Override
+    public boolean registerUser(User user) {
+        if (emailOwners.putIfAbsent(user.getEmail(), user.getUsername()) != null) {
+            return false;
+        }
+        int id = nextUserId.getAndIncrement();
+        User stored = new User(id, user.getUsername(), user.getEmail(), "", user.getFullName());
+        stored.setRole(id == 1 ? Role.MANAGER : Role.CASHIER);
+        if (usersByName.putIfAbsent(user.getUsername(), new UserRow(stored, PasswordHasher.hash(user.getPassword()))) != null) {
+            emailOwners.remove(user.getEmail());
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public User authenticateUser(String username, String password) {
+        UserRow row = usersByName.get(username);
+        if (row != null && row.passwordHash.equals(PasswordHasher.hash(password))) {
+            return copyOf(row.user);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean userExists(String username, String email) {
+        return usersByName.containsKey(username) || emailOwners.containsKey(email);
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        List<User> list = new ArrayList<>();
+        for (UserRow row : usersByName.values()) {
+            list.add(copyOf(row.user));
+        }
+        return list;
+    }
+
+    private static User copyOf(User u) {
+        User copy = new User(u.getId(), u.getUsername(), u.getEmail(), "", u.getFullName());
+        copy.setRole(u.getRole());
+        return copy;
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
@@ -1,12 +1,20 @@
 package com.inventory.server;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
+import java.nio.file.Paths;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class InventoryServer {
     public static void main(String[] args) {
@@ -15,33 +23,116 @@ public class InventoryServer {
             String serverIP = getServerIP();
             System.setProperty("java.rmi.server.hostname", serverIP);
 
-            // 1. Initialize Database
-            DatabaseHandler dbHandler = new DatabaseHandler();
+            // 1. Initialize Storage
+            DatabaseHandler db = openDatabase();
+            InventoryStore store = createStore(db);
+            Runtime.getRuntime().addShutdownHook(new Thread(store::close, "store-shutdown"));
 
             // 2. Start Socket Server
-            SocketServer socketServer = new SocketServer();
+            SocketServer socketServer = new SocketServer(
+                    Integer.getInteger("inventory.notify.maxClients", 5000),
+                    Integer.getInteger("inventory.notify.maxQueued", 1024),
+                    Long.getLong("inventory.notify.evictAfterMillis", 30_000L),
+                    Long.getLong("inventory.notify.coalesceMillis", 100L));
             socketServer.start();
 
             // 3. Start RMI Service
-            InventoryServiceImpl service = new InventoryServiceImpl(dbHandler, socketServer);
+            InventoryServiceImpl service = new InventoryServiceImpl(store, socketServer);
 
             // Create RMI registry on port 1099
             Registry registry = LocateRegistry.createRegistry(1099);
             registry.rebind("InventoryService", service);
 
+            // 4. Log server statistics periodically
+            long statsInterval = Long.getLong("inventory.stats.intervalMillis", 60_000L);
+            if (statsInterval > 0) {
+                startStatsLogger(statsInterval, db, service, socketServer);
+            }
+
             System.out.println("\n===========================================");
             System.out.println("✓ Inventory Server Ready!");
             System.out.println("===========================================");
             System.out.println("Server IP: " + serverIP);
             System.out.println("RMI Port: 1099");
             System.out.println("Socket Port: 9090");
+            System.out.println("Storage: " + store.getClass().getSimpleName());
             System.out.println("===========================================");
             System.out.println("\n>>> CLIENTS SHOULD CONNECT TO: " + serverIP + " <<<\n");
 
         } catch (Exception e) {
             System.err.println("Server exception: " + e.toString());
             e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Connect to MySQL using inventory.db.url / inventory.db.name /
+     * inventory.db.user / inventory.db.password, or return null when
+     * -Dinventory.store=memory selects the in-process engine.
+     */
+    private static DatabaseHandler openDatabase() throws SQLException {
+        String type = System.getProperty("inventory.store", "mysql");
+        if (type.equalsIgnoreCase("memory")) {
+            return null;
+        }
+        return new DatabaseHandler(
+                System.getProperty("inventory.db.url", DatabaseHandler.DEFAULT_URL),
+                System.getProperty("inventory.db.name", DatabaseHandler.DEFAULT_DB_NAME),
+                System.getProperty("inventory.db.user", DatabaseHandler.DEFAULT_USER),
+                System.getProperty("inventory.db.password", DatabaseHandler.DEFAULT_PASS));
+    }
+
+    /**
+     * Pick the storage backend: the in-process engine when there is no database,
+     * otherwise MySQL. With MySQL, inventory.hot.skus (comma separated product ids)
+     * turns on hot stock mode.
+     */
+    private static InventoryStore createStore(DatabaseHandler db) throws IOException, SQLException {
+        if (db == null) {
+            System.out.println("Using in-memory storage (data is not persisted)");
+            return new InMemoryStore();
+        }
+
+        Set<Integer> hotSkus = new TreeSet<>();
+        for (String id : System.getProperty("inventory.hot.skus", "").split(",")) {
+            if (!id.isBlank()) {
+                hotSkus.add(Integer.parseInt(id.trim()));
+            }
+        }
+        if (hotSkus.isEmpty()) {
+            return db;
         }
+        return new HotStockStore(db, hotSkus,
+                Integer.getInteger("inventory.hot.buckets", Runtime.getRuntime().availableProcessors()),
+                Long.getLong("inventory.hot.flushMillis", 200L),
+                Paths.get(System.getProperty("inventory.hot.journal", "hot-sales.journal")));
+    }
+
+    /**
+     * Print connection pool, catalog cache, availability filter and notification
+     * socket statistics every intervalMillis on a daemon thread
+     */
+    private static void startStatsLogger(long intervalMillis, DatabaseHandler db,
+                                         InventoryServiceImpl service, SocketServer socketServer) {
+        ScheduledExecutorService logger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stats-logger");
+            t.setDaemon(true);
+            return t;
+        });
+        logger.scheduleAtFixedRate(() -> {
+            try {
+                if (db != null) {
+                    System.out.println("Stats: connection pool " + db.getPoolStats());
+                }
+                System.out.println("Stats: product cache " + service.getCacheStats());
+                System.out.println("Stats: availability checks " + service.getUserCheckStats());
+                System.out.println("Stats: notifications " + socketServer.getStats());
+            } catch (RuntimeException e) {
+                // A failed report must not cancel the ones after it
+                e.printStackTrace();
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -1,110 +1,644 @@
 package com.inventory.server;
 
+import com.inventory.common.BatchOperation;
+import com.inventory.common.BatchResult;
+import com.inventory.common.CartLine;
+import com.inventory.common.CartLineResult;
+import com.inventory.common.CartResult;
+import com.inventory.common.CatalogEvent;
+import com.inventory.common.ImportResult;
 import com.inventory.common.InventoryService;
+import com.inventory.common.LowStockItem;
+import com.inventory.common.Notice;
+import com.inventory.common.Page;
+import com.inventory.common.PermissionDeniedException;
 import com.inventory.common.Product;
+import com.inventory.common.ProductChanges;
+import com.inventory.common.ReportGrouping;
+import com.inventory.common.SalesAggregate;
+import com.inventory.common.SaleRecord;
+import com.inventory.common.SalesQuery;
+import com.inventory.common.SalesSummary;
+import com.inventory.common.SalesWindow;
+import com.inventory.common.TopSeller;
+import com.inventory.common.TopSellerMetric;
+import com.inventory.common.User;
+import java.io.IOException;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class InventoryServiceImpl extends UnicastRemoteObject implements InventoryService {
-    private final DatabaseHandler dbHandler;
+    private final InventoryStore store;
     private final SocketServer socketServer;
+    private final ProductCache productCache;
+    private final SessionManager sessions;
+    private final UserAvailability userAvailability;
+    private final LowStockIndex lowStock = new LowStockIndex();
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private final BestSellers bestSellers = new BestSellers(Integer.getInteger("inventory.bestsellers.capacity", 200));
+    // Held across a product's store write and the cache update and event that follow it,
+    // so the cache, the low-stock index and clients see each product's writes in commit order.
+    // Sales of hot products take it only after the sale (see processSale)
+    private final StripedLock productWriteLocks = new StripedLock(256);
 
-    public InventoryServiceImpl(DatabaseHandler dbHandler, SocketServer socketServer) throws RemoteException {
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_BATCH_OPERATIONS = 100;
+
+    public InventoryServiceImpl(InventoryStore store, SocketServer socketServer) throws RemoteException {
         super();
-        this.dbHandler = dbHandler;
+        this.store = store;
         this.socketServer = socketServer;
+        this.productCache = new ProductCache(store,
+                Integer.getInteger("inventory.cache.maxProducts", 200_000),
+                Long.getLong("inventory.cache.maxAgeMillis", 5 * 60 * 1000L));
+        this.sessions = new SessionManager(
+                Long.getLong("inventory.session.idleMillis", 30 * 60 * 1000L),
+                Long.getLong("inventory.session.maxAgeMillis", 12 * 60 * 60 * 1000L));
+        try {
+            this.userAvailability = new UserAvailability(store,
+                    Integer.getInteger("inventory.users.expected", 100_000));
+            List<Product> products = productCache.getAll();
+            lowStock.rebuild(products);
+            searchIndex.rebuild(products);
+        } catch (SQLException e) {
+            throw new RemoteException("Error loading users and products", e);
+        }
+    }
+
+    /**
+     * Catalog cache statistics, for monitoring
+     */
+    public String getCacheStats() {
+        return productCache.getStats();
+    }
+
+    /**
+     * Username/email availability filter statistics, for monitoring
+     */
+    public String getUserCheckStats() {
+        return userAvailability.getStats();
     }
 
     @Override
-    public void addProduct(Product product) throws RemoteException {
+    public void addProduct(String sessionToken, Product product) throws RemoteException {
+        addProduct(sessions.validate(sessionToken), product);
+    }
+
+    private void addProduct(User user, Product product) throws RemoteException {
+        requireCatalogEditor(user, "add products");
         try {
-            dbHandler.addProduct(product);
-            socketServer.broadcast("System: New product added - " + product.getName());
+            int id = store.addProduct(product);
+            Product added = product.withId(id);
+            productCache.add(added);
+            lowStock.put(added);
+            searchIndex.put(added);
+            socketServer.publish(CatalogEvent.productAdded(added));
+            socketServer.broadcast(Notice.system("System: New product added - " + product.getName()));
         } catch (SQLException e) {
             throw new RemoteException("Error adding product", e);
         }
     }
 
     @Override
-    public void updateProduct(Product product) throws RemoteException {
+    public void updateProduct(String sessionToken, Product product) throws RemoteException {
+        updateProduct(sessions.validate(sessionToken), product);
+    }
+
+    private void updateProduct(User user, Product product) throws RemoteException {
+        requireCatalogEditor(user, "update products");
         try {
-            dbHandler.updateProduct(product);
-            socketServer.broadcast("System: Product updated - " + product.getName());
+            ReentrantLock lock = productWriteLocks.get(product.getId());
+            lock.lock();
+            try {
+                store.updateProduct(product);
+                productCache.put(product);
+                lowStock.put(product);
+                searchIndex.put(product);
+                socketServer.publish(CatalogEvent.productUpdated(product));
+            } finally {
+                lock.unlock();
+            }
+            socketServer.broadcast(Notice.system("System: Product updated - " + product.getName()));
         } catch (SQLException e) {
             throw new RemoteException("Error updating product", e);
         }
     }
 
     @Override
-    public void deleteProduct(int productId) throws RemoteException {
+    public void deleteProduct(String sessionToken, int productId) throws RemoteException {
+        deleteProduct(sessions.validate(sessionToken), productId);
+    }
+
+    private void deleteProduct(User user, int productId) throws RemoteException {
+        requireCatalogEditor(user, "delete products");
         try {
-            dbHandler.deleteProduct(productId);
-            socketServer.broadcast("System: Product deleted ID " + productId);
+            ReentrantLock lock = productWriteLocks.get(productId);
+            lock.lock();
+            try {
+                store.deleteProduct(productId);
+                productCache.remove(productId);
+                lowStock.remove(productId);
+                searchIndex.remove(productId);
+                socketServer.publish(CatalogEvent.productDeleted(productId));
+            } finally {
+                lock.unlock();
+            }
+            socketServer.broadcast(Notice.system("System: Product deleted ID " + productId));
         } catch (SQLException e) {
             throw new RemoteException("Error deleting product", e);
         }
     }
 
     @Override
-    public List<Product> getAllProducts() throws RemoteException {
+    public ImportResult importProducts(String sessionToken, String csv) throws RemoteException {
+        requireCatalogEditor(sessions.validate(sessionToken), "import products");
+        try {
+            ProductImporter importer = new ProductImporter(store, IMPORT_CHUNK_SIZE);
+            ImportResult result;
+            try {
+                result = importer.importCsv(csv,
+                        (read, imported) -> System.out.println("Import progress: " + imported + " of " + read + " rows written"));
+            } finally {
+                // Even a failed import may have committed some chunks
+                productCache.invalidateAll();
+                socketServer.publish(CatalogEvent.catalogReloaded());
+                List<Product> products = productCache.getAll();
+                lowStock.rebuild(products);
+                searchIndex.rebuild(products);
+            }
+            // One summary for the whole file instead of one message per product
+            socketServer.broadcast(Notice.system("System: Imported " + result.getRowsImported() + " products ("
+                    + result.getRowsRejected() + " rejected)"));
+            return result;
+        } catch (SQLException | IOException e) {
+            throw new RemoteException("Error importing products", e);
+        }
+    }
+
+    @Override
+    public List<Product> getAllProducts(String sessionToken) throws RemoteException {
+        sessions.validate(sessionToken);
+        return getAllProducts();
+    }
+
+    private List<Product> getAllProducts() throws RemoteException {
         try {
-            return dbHandler.getAllProducts();
+            return productCache.getAll();
         } catch (SQLException e) {
             throw new RemoteException("Error listing products", e);
         }
     }
 
     @Override
-    public Product getProduct(int productId) throws RemoteException {
+    public Product getProduct(String sessionToken, int productId) throws RemoteException {
+        sessions.validate(sessionToken);
+        return getProduct(productId);
+    }
+
+    private Product getProduct(int productId) throws RemoteException {
         try {
-            return dbHandler.getProduct(productId);
+            return productCache.get(productId);
         } catch (SQLException e) {
             throw new RemoteException("Error getting product", e);
         }
     }
 
     @Override
-    public boolean processSale(int productId, int quantity) throws RemoteException {
+    public List<Product> searchProducts(String sessionToken, String query, int limit) throws RemoteException {
+        sessions.validate(sessionToken);
+        return searchProducts(query, limit);
+    }
+
+    private List<Product> searchProducts(String query, int limit) throws RemoteException {
+        try {
+            List<Product> list = new ArrayList<>();
+            for (int id : searchIndex.search(query, Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS)))) {
+                Product p = productCache.get(id);
+                if (p != null) {
+                    list.add(p);
+                }
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new RemoteException("Error searching products", e);
+        }
+    }
+
+    @Override
+    public Page<Product> getProductsPage(String sessionToken, int afterId, int pageSize, String category) throws RemoteException {
+        sessions.validate(sessionToken);
+        return getProductsPage(afterId, pageSize, category);
+    }
+
+    private Page<Product> getProductsPage(int afterId, int pageSize, String category) throws RemoteException {
+        try {
+            return productCache.getPage(afterId, pageSize, category);
+        } catch (SQLException e) {
+            throw new RemoteException("Error listing products", e);
+        }
+    }
+
+    @Override
+    public ProductChanges getProductsChangedSince(String sessionToken, long version, int maxRows) throws RemoteException {
+        sessions.validate(sessionToken);
         try {
-            boolean success = dbHandler.processSale(productId, quantity);
-            if (success) {
-                // Check for low stock
-                Product p = dbHandler.getProduct(productId);
-                if (p != null && p.getQuantity() < 5) {
-                    socketServer.broadcast("ALERT: Low stock for " + p.getName() + " (Qty: " + p.getQuantity() + ")");
+            return store.getProductsChangedSince(version, maxRows);
+        } catch (SQLException e) {
+            throw new RemoteException("Error listing product changes", e);
+        }
+    }
+
+    @Override
+    public boolean processSale(String sessionToken, int productId, int quantity) throws RemoteException {
+        return processSale(sessions.validate(sessionToken), productId, quantity);
+    }
+
+    private boolean processSale(User user, int productId, int quantity) throws RemoteException {
+        requireSeller(user);
+        try {
+            LowStockItem low;
+            ReentrantLock lock = productWriteLocks.get(productId);
+            if (store.liveStock(productId) >= 0) {
+                // Hot product: the sale waits for its journal write, and holding the lock
+                // across that would let only one sale of the product sync at a time. The
+                // lock is taken afterwards to apply the live stock read under it, so the
+                // last sale to apply has seen every sale before it
+                int left = store.processSale(productId, quantity);
+                if (left < 0) {
+                    return false;
+                }
+                lock.lock();
+                try {
+                    int live = store.liveStock(productId);
+                    low = applyStockChange(productId, live >= 0 ? live : left);
+                } finally {
+                    lock.unlock();
+                }
+            } else {
+                lock.lock();
+                try {
+                    int left = store.processSale(productId, quantity);
+                    if (left < 0) {
+                        return false;
+                    }
+                    low = applyStockChange(productId, left);
+                } finally {
+                    lock.unlock();
                 }
-                socketServer.broadcast("Sale: " + quantity + " units of item " + productId + " sold.");
             }
-            return success;
+            Product sold = productCache.get(productId);
+            double amount = sold != null ? sold.getPrice() * quantity : 0;
+            bestSellers.record(productId, quantity, amount);
+            if (low != null) {
+                socketServer.broadcast(Notice.lowStock(low));
+            }
+            socketServer.broadcast(Notice.sale(productId, quantity, amount, user.getUsername()));
+            return true;
         } catch (SQLException e) {
             throw new RemoteException("Error processing sale", e);
         }
     }
 
     @Override
-    public List<com.inventory.common.SaleRecord> getSalesReport() throws RemoteException {
+    public CartResult processCart(String sessionToken, List<CartLine> lines) throws RemoteException {
+        return processCart(sessions.validate(sessionToken), lines);
+    }
+
+    private CartResult processCart(User user, List<CartLine> lines) throws RemoteException {
+        requireSeller(user);
+        try {
+            List<Integer> productIds = new ArrayList<>();
+            for (CartLine line : lines) {
+                productIds.add(line.getProductId());
+            }
+            // One alert per product even if it is on several lines
+            Map<Integer, LowStockItem> lowLines = new LinkedHashMap<>();
+            CartResult result;
+            List<ReentrantLock> locks = productWriteLocks.getAll(productIds);
+            locks.forEach(ReentrantLock::lock);
+            try {
+                result = store.processCart(lines);
+                if (result.isSuccess()) {
+                    for (CartLineResult line : result.getLines()) {
+                        LowStockItem low = applyStockChange(line.getProductId(), line.getRemainingStock());
+                        if (low != null) {
+                            lowLines.put(line.getProductId(), low);
+                        }
+                    }
+                }
+            } finally {
+                locks.forEach(ReentrantLock::unlock);
+            }
+            if (result.isSuccess()) {
+                for (CartLineResult line : result.getLines()) {
+                    bestSellers.record(line.getProductId(), line.getQuantity(), line.getLineTotal());
+                }
+                for (LowStockItem low : lowLines.values()) {
+                    socketServer.broadcast(Notice.lowStock(low));
+                }
+                socketServer.broadcast(Notice.order(result.getOrderId(), result.getTotalUnits(), result.getTotalPrice(),
+                        user.getUsername()));
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new RemoteException("Error processing cart", e);
+        }
+    }
+
+    /**
+     * Apply the stock a committed sale left to the cache and low-stock index and push
+     * it to clients. The caller holds the product's write lock, so a concurrent
+     * update cannot land in between. Returns the product's low-stock entry if it is
+     * now low.
+     */
+    private LowStockItem applyStockChange(int productId, int stock) {
+        productCache.setStock(productId, stock);
+        socketServer.publish(CatalogEvent.stockChanged(productId, stock));
+        return lowStock.stockChanged(productId, stock);
+    }
+
+    @Override
+    public List<LowStockItem> getLowStock(String sessionToken, int limit) throws RemoteException {
+        sessions.validate(sessionToken);
+        return getLowStock(limit);
+    }
+
+    private List<LowStockItem> getLowStock(int limit) {
+        return lowStock.getLowStock(Math.max(1, limit));
+    }
+
+    @Override
+    public List<com.inventory.common.SaleRecord> getSalesReport(String sessionToken) throws RemoteException {
+        sessions.validate(sessionToken);
+        try {
+            return store.getSales();
+        } catch (SQLException e) {
+            throw new RemoteException("Error getting sales report", e);
+        }
+    }
+
+    @Override
+    public Page<SaleRecord> getSalesPage(String sessionToken, SalesQuery query) throws RemoteException {
+        sessions.validate(sessionToken);
+        return getSalesPage(query);
+    }
+
+    private Page<SaleRecord> getSalesPage(SalesQuery query) throws RemoteException {
         try {
-            return dbHandler.getSales();
+            return store.getSalesPage(query);
         } catch (SQLException e) {
             throw new RemoteException("Error getting sales report", e);
         }
     }
 
     @Override
-    public com.inventory.common.User login(String username, String password) throws RemoteException {
+    public SalesSummary getSalesSummary(String sessionToken, Date from, Date to) throws RemoteException {
+        sessions.validate(sessionToken);
+        return getSalesSummary(from, to);
+    }
+
+    private SalesSummary getSalesSummary(Date from, Date to) throws RemoteException {
+        try {
+            return store.getSalesSummary(from, to);
+        } catch (SQLException e) {
+            throw new RemoteException("Error getting sales summary", e);
+        }
+    }
+
+    @Override
+    public List<SalesAggregate> getSalesBreakdown(String sessionToken, Date from, Date to, ReportGrouping grouping)
+            throws RemoteException {
+        sessions.validate(sessionToken);
+        return getSalesBreakdown(from, to, grouping);
+    }
+
+    private List<SalesAggregate> getSalesBreakdown(Date from, Date to, ReportGrouping grouping)
+            throws RemoteException {
+        try {
+            return store.getSalesBreakdown(from, to, grouping);
+        } catch (SQLException e) {
+            throw new RemoteException("Error getting sales breakdown", e);
+        }
+    }
+
+    @Override
+    public List<TopSeller> getTopSellers(String sessionToken, SalesWindow window, TopSellerMetric metric, int limit)
+            throws RemoteException {
+        sessions.validate(sessionToken);
+        return getTopSellers(window, metric, limit);
+    }
+
+    private List<TopSeller> getTopSellers(SalesWindow window, TopSellerMetric metric, int limit)
+            throws RemoteException {
+        try {
+            List<TopSeller> list = new ArrayList<>();
+            for (BestSellers.Estimate e : bestSellers.getTop(window, metric, Math.max(1, limit))) {
+                Product p = productCache.get(e.productId);
+                list.add(new TopSeller(e.productId, p != null ? p.getName() : "ID " + e.productId, e.value,
+                        e.maxError));
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new RemoteException("Error getting top sellers", e);
+        }
+    }
+
+    @Override
+    public BatchResult executeBatch(String sessionToken, List<BatchOperation> operations, boolean atomic)
+            throws RemoteException {
+        User user = sessions.validate(sessionToken);
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new RemoteException("Batch of " + operations.size() + " operations is over the limit of "
+                    + MAX_BATCH_OPERATIONS);
+        }
+        List<Object> results = new ArrayList<>(Collections.nCopies(operations.size(), null));
+        List<String> errors = new ArrayList<>(Collections.nCopies(operations.size(), null));
+        if (atomic) {
+            return executeAtomic(user, operations, results, errors);
+        }
+        boolean success = true;
+        for (int i = 0; i < operations.size(); i++) {
+            try {
+                results.set(i, execute(user, operations.get(i)));
+            } catch (RemoteException | RuntimeException e) {
+                errors.set(i, e.getMessage());
+                success = false;
+            }
+        }
+        return new BatchResult(success, results, errors);
+    }
+
+    /**
+     * Runs the batch's sales as one cart at the position of the first sale, so
+     * either every line sells or none does, and stops at the first failure.
+     * Product changes cannot be rolled back with the cart, so a batch holding
+     * any is refused before anything runs. Reads run in order around the cart;
+     * one failing after it cannot undo the sales.
+     */
+    private BatchResult executeAtomic(User user, List<BatchOperation> operations, List<Object> results,
+            List<String> errors) throws RemoteException {
+        List<CartLine> cart = new ArrayList<>();
+        int[] firstLine = new int[operations.size()];
+        boolean refused = false;
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation op = operations.get(i);
+            firstLine[i] = cart.size();
+            if (op.getType() == BatchOperation.Type.PROCESS_SALE) {
+                cart.add(new CartLine(op.getProductId(), op.getQuantity()));
+            } else if (op.getType() == BatchOperation.Type.PROCESS_CART) {
+                cart.addAll(op.getLines());
+            } else if (op.getType().isProductChange()) {
+                errors.set(i, "Product changes cannot be part of an atomic batch");
+                refused = true;
+            }
+        }
+        if (refused) {
+            markNotRun(errors, 0);
+            return new BatchResult(false, results, errors);
+        }
+
+        CartResult sold = null;
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation op = operations.get(i);
+            if (op.getType().isSale()) {
+                if (sold != null) {
+                    continue; // already sold with the first one
+                }
+                try {
+                    sold = processCart(user, cart);
+                } catch (RemoteException | RuntimeException e) {
+                    errors.set(i, e.getMessage());
+                    markNotRun(errors, i + 1);
+                    return new BatchResult(false, results, errors);
+                }
+                for (int j = i; j < operations.size(); j++) {
+                    if (operations.get(j).getType().isSale()) {
+                        int end = j + 1 < operations.size() ? firstLine[j + 1] : cart.size();
+                        results.set(j, saleResult(operations.get(j), sold, firstLine[j], end));
+                        if (!sold.isSuccess()) {
+                            errors.set(j, "Sale failed, nothing was sold");
+                        }
+                    }
+                }
+                if (!sold.isSuccess()) {
+                    markNotRun(errors, i + 1);
+                    return new BatchResult(false, results, errors);
+                }
+                continue;
+            }
+            try {
+                results.set(i, execute(user, op));
+            } catch (RemoteException | RuntimeException e) {
+                errors.set(i, e.getMessage());
+                markNotRun(errors, i + 1);
+                return new BatchResult(false, results, errors);
+            }
+        }
+        return new BatchResult(true, results, errors);
+    }
+
+    // What the operation would have returned on its own, cut from the combined cart
+    private static Object saleResult(BatchOperation op, CartResult sold, int from, int to) {
+        if (op.getType() == BatchOperation.Type.PROCESS_SALE) {
+            return sold.isSuccess();
+        }
+        return new CartResult(sold.getOrderId(), sold.isSuccess(), new ArrayList<>(sold.getLines().subList(from, to)));
+    }
+
+    private static void markNotRun(List<String> errors, int from) {
+        for (int i = from; i < errors.size(); i++) {
+            if (errors.get(i) == null) {
+                errors.set(i, "Not run, the batch failed");
+            }
+        }
+    }
+
+    // The role comes with the session, so these checks cost no query
+    private static void requireSeller(User user) throws PermissionDeniedException {
+        if (!user.getRole().canSell()) {
+            throw new PermissionDeniedException(user, "sell");
+        }
+    }
+
+    private static void requireCatalogEditor(User user, String action) throws PermissionDeniedException {
+        if (!user.getRole().canEditCatalog()) {
+            throw new PermissionDeniedException(user, action);
+        }
+    }
+
+    private Object execute(User user, BatchOperation op) throws RemoteException {
+        switch (op.getType()) {
+            case GET_PRODUCT:
+                return getProduct(op.getProductId());
+            case GET_ALL_PRODUCTS:
+                return getAllProducts();
+            case GET_PRODUCTS_PAGE:
+                return getProductsPage(op.getProductId(), op.getLimit(), op.getText());
+            case SEARCH_PRODUCTS:
+                return searchProducts(op.getText(), op.getLimit());
+            case GET_LOW_STOCK:
+                return getLowStock(op.getLimit());
+            case GET_SALES_PAGE:
+                return getSalesPage(op.getSalesQuery());
+            case GET_SALES_SUMMARY:
+                return getSalesSummary(op.getFrom(), op.getTo());
+            case GET_SALES_BREAKDOWN:
+                return getSalesBreakdown(op.getFrom(), op.getTo(), op.getGrouping());
+            case GET_TOP_SELLERS:
+                return getTopSellers(op.getWindow(), op.getMetric(), op.getLimit());
+            case ADD_PRODUCT:
+                addProduct(user, op.getProduct());
+                return null;
+            case UPDATE_PRODUCT:
+                updateProduct(user, op.getProduct());
+                return null;
+            case DELETE_PRODUCT:
+                deleteProduct(user, op.getProductId());
+                return null;
+            case PROCESS_SALE:
+                return processSale(user, op.getProductId(), op.getQuantity());
+            case PROCESS_CART:
+                return processCart(user, op.getLines());
+            default:
+                throw new IllegalArgumentException("Unknown batch operation " + op.getType());
+        }
+    }
+
+    @Override
+    public User login(String username, String password) throws RemoteException {
         try {
-            return dbHandler.authenticateUser(username, password);
+            User user = store.authenticateUser(username, password);
+            if (user != null) {
+                user.setSessionToken(sessions.open(user));
+            }
+            return user;
         } catch (SQLException e) {
             throw new RemoteException("Error logging in", e);
         }
     }
 
     @Override
-    public boolean registerUser(com.inventory.common.User user) throws RemoteException {
+    public void logout(String sessionToken) throws RemoteException {
+        sessions.close(sessionToken);
+    }
+
+    @Override
+    public boolean registerUser(User user) throws RemoteException {
         try {
-            return dbHandler.registerUser(user);
+            boolean registered = store.registerUser(user);
+            if (registered) {
+                userAvailability.added(user);
+            }
+            return registered;
         } catch (SQLException e) {
             throw new RemoteException("Error registering user", e);
         }
@@ -113,7 +647,7 @@ public class InventoryServiceImpl extends UnicastRemoteObject implements Invento
     @Override
     public boolean checkUserExists(String username, String email) throws RemoteException {
         try {
-            return dbHandler.usernameExists(username) || dbHandler.emailExists(email);
+            return userAvailability.isTaken(username, email);
         } catch (SQLException e) {
             throw new RemoteException("Error checking user existence", e);
         }
@@ -0,0 +1,106 @@
+package com.inventory.server;
+
+import com.inventory.common.CartLine;
+import com.inventory.common.CartResult;
+import com.inventory.common.Page;
+import com.inventory.common.Product;
+import com.inventory.common.ProductChanges;
+import com.inventory.common.ReportGrouping;
+import com.inventory.common.SaleRecord;
+import com.inventory.common.SalesAggregate;
+import com.inventory.common.SalesQuery;
+import com.inventory.common.SalesSummary;
+import com.inventory.common.User;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Storage backend used by InventoryServiceImpl.
+ *
+ * DatabaseHandler is the MySQL implementation and InMemoryStore keeps
+ * everything in process. Implementations must be safe for concurrent use.
+ */
+public interface InventoryStore {
+    // Products
+    /**
+     * Insert a product and return its generated id
+     */
+    int addProduct(Product p) throws SQLException;
+
+    void updateProduct(Product p) throws SQLException;
+
+    void deleteProduct(int id) throws SQLException;
+
+    List<Product> getAllProducts() throws SQLException;
+
+    Product getProduct(int id) throws SQLException;
+
+    Page<Product> getProductsPage(int afterId, int pageSize, String category) throws SQLException;
+
+    /**
+     * Products added, changed or deleted after the given change version, oldest
+     * first, at most maxRows of them
+     */
+    ProductChanges getProductsChangedSince(long sinceVersion, int maxRows) throws SQLException;
+
+    /**
+     * Write a chunk of products in one transaction: id 0 inserts, any other id
+     * upserts. Returns the number of products written.
+     */
+    int importProducts(List<Product> products) throws SQLException;
+
+    /**
+     * Make sure products added from now on get ids above maxId, so an import can
+     * add id-less rows without taking an id it sets explicitly further on
+     */
+    void reserveProductIds(int maxId) throws SQLException;
+
+    // Sales
+    /**
+     * Sell quantity units and return the product's stock right after the sale
+     * committed, or -1 if nothing was sold
+     */
+    int processSale(int productId, int quantity) throws SQLException;
+
+    /**
+     * Current stock of a product whose sales are taken in memory rather than in
+     * a database transaction (see HotStockStore), or -1 for any other product.
+     * Sales of such products complete concurrently and in no particular order,
+     * so callers read this after a sale instead of relying on what it returned.
+     */
+    int liveStock(int productId);
+
+    /**
+     * Sell a whole cart or nothing. Each line's remaining stock is the product's
+     * stock right after the cart committed.
+     */
+    CartResult processCart(List<CartLine> lines) throws SQLException;
+
+    List<SaleRecord> getSales() throws SQLException;
+
+    Page<SaleRecord> getSalesPage(SalesQuery query) throws SQLException;
+
+    SalesSummary getSalesSummary(Date from, Date to) throws SQLException;
+
+    List<SalesAggregate> getSalesBreakdown(Date from, Date to, ReportGrouping grouping) throws SQLException;
+
+    void resetDatabase() throws SQLException;
+
+    // Users
+    boolean registerUser(User user) throws SQLException;
+
+    User authenticateUser(String username, String password) throws SQLException;
+
+    /**
+     * True if the username or the email is already registered, in one lookup
+     */
+    boolean userExists(String username, String email) throws SQLException;
+
+    /**
+     * Every registered user, without passwords
+     */
+    List<User> getAllUsers() throws SQLException;
+
+    void close();
+}
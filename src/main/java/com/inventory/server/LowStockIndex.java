@@ -0,0 +1,91 @@
+package com.inventory.server;
+
+import com.inventory.common.LowStockItem;
+import com.inventory.common.Product;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Stock level and reorder level of every product, plus the products below
+ * their reorder level ordered by how close they are to running out.
+ *
+ * The service keeps it current from its write and sale paths, so a sale only
+ * needs the new stock level to know whether the product just went low, and the
+ * reorder list is read without scanning the catalog.
+ */
+public class LowStockIndex {
+    private static final Comparator<LowStockItem> MOST_URGENT_FIRST = Comparator
+            .comparingDouble(LowStockItem::getStockRatio)
+            .thenComparingInt(LowStockItem::getProductId);
+
+    private final Map<Integer, LowStockItem> all = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<LowStockItem> low = new ConcurrentSkipListSet<>(MOST_URGENT_FIRST);
+
+    /**
+     * Replace the whole index, e.g. after a bulk import
+     */
+    public synchronized void rebuild(List<Product> products) {
+        all.clear();
+        low.clear();
+        for (Product p : products) {
+            put(p);
+        }
+    }
+
+    public void put(Product p) {
+        replace(p.getId(), new LowStockItem(p.getId(), p.getName(), p.getCategory(), p.getQuantity(),
+                p.getReorderLevel()));
+    }
+
+    /**
+     * Record a new stock level; returns the product's entry if it is now low, otherwise null
+     */
+    public LowStockItem stockChanged(int productId, int quantity) {
+        LowStockItem updated = all.computeIfPresent(productId, (id, old) -> {
+            LowStockItem item = new LowStockItem(id, old.getName(), old.getCategory(), quantity, old.getReorderLevel());
+            low.remove(old);
+            if (item.isLow()) {
+                low.add(item);
+            }
+            return item;
+        });
+        return updated != null && updated.isLow() ? updated : null;
+    }
+
+    public void remove(int productId) {
+        all.computeIfPresent(productId, (id, old) -> {
+            low.remove(old);
+            return null;
+        });
+    }
+
+    /**
+     * Products below their reorder level, most urgent first
+     */
+    public List<LowStockItem> getLowStock(int limit) {
+        List<LowStockItem> list = new ArrayList<>();
+        for (LowStockItem item : low) {
+            if (list.size() == limit) {
+                break;
+            }
+            list.add(item);
+        }
+        return list;
+    }
+
+    private void replace(int productId, LowStockItem item) {
+        all.compute(productId, (id, old) -> {
+            if (old != null) {
+                low.remove(old);
+            }
+            if (item.isLow()) {
+                low.add(item);
+            }
+            return item;
+        });
+    }
+}
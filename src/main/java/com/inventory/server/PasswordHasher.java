@@ -0,0 +1,29 @@
+package com.inventory.server;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+final class PasswordHasher {
+    private PasswordHasher() {
+    }
+
+    /**
+     * Hash password using SHA-256
+     */
+    static String hash(String password) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(password.getBytes());
+            StringBuilder hexString = new StringBuilder();
+            for (byte b : hash) {
+                String hex = Integer.toHexString(0xff & b);
+                if (hex.length() == 1)
+                    hexString.append('0');
+                hexString.append(hex);
+            }
+            return hexString.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error hashing password", e);
+        }
+    }
+}
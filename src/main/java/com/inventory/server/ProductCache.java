@@ -0,0 +1,200 @@
+package com.inventory.server;
+
+import com.inventory.common.Page;
+import com.inventory.common.Product;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of the product catalog in front of an InventoryStore,
+ * kept current by the service's write paths.
+ *
+ * The catalog is loaded as a whole and then patched by write-through calls;
+ * products in the cache are never mutated in place. Rows written while a load
+ * is running are re-read once it finishes. Because a write reaches the cache
+ * just after its commit, a reload can very occasionally race one; the whole
+ * catalog is therefore also reloaded every maxAgeMillis as a safety net.
+ */
+public class ProductCache {
+    private static final int MAX_RELOAD_ROUNDS = 3;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final InventoryStore store;
+    private final int maxSize;
+    private final long maxAgeMillis;
+
+    private final ConcurrentSkipListMap<Integer, Product> byId = new ConcurrentSkipListMap<>();
+    private volatile boolean complete = false; // byId holds the whole catalog
+    private volatile long loadedAt;
+    private final Object fullLoadLock = new Object();
+
+    // Ids written while a full load is running; those rows are re-read afterwards
+    private volatile boolean loading = false;
+    private final Set<Integer> writtenDuringLoad = ConcurrentHashMap.newKeySet();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong fullLoads = new AtomicLong();
+
+    public ProductCache(InventoryStore store, int maxSize, long maxAgeMillis) {
+        this.store = store;
+        this.maxSize = maxSize;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public List<Product> getAll() throws SQLException {
+        if (isFresh()) {
+            hits.incrementAndGet();
+            return new ArrayList<>(byId.values());
+        }
+        // One thread reloads the catalog while concurrent callers wait for it
+        synchronized (fullLoadLock) {
+            if (isFresh()) {
+                hits.incrementAndGet();
+                return new ArrayList<>(byId.values());
+            }
+            misses.incrementAndGet();
+            fullLoads.incrementAndGet();
+
+            writtenDuringLoad.clear();
+            long invalidationsAtStart = invalidations.get();
+            loading = true;
+            try {
+                long started = System.currentTimeMillis();
+                List<Product> list = store.getAllProducts();
+                if (list.size() > maxSize) {
+                    complete = false;
+                    byId.clear();
+                    return list; // too big to hold; serve uncached
+                }
+                byId.clear();
+                for (Product p : list) {
+                    byId.put(p.getId(), p);
+                }
+                for (int round = 0; round < MAX_RELOAD_ROUNDS && !writtenDuringLoad.isEmpty(); round++) {
+                    List<Integer> ids = new ArrayList<>(writtenDuringLoad);
+                    writtenDuringLoad.removeAll(ids);
+                    for (int id : ids) {
+                        Product fresh = store.getProduct(id);
+                        if (fresh == null) {
+                            byId.remove(id);
+                        } else {
+                            byId.put(id, fresh);
+                        }
+                    }
+                }
+                loading = false;
+                loadedAt = started;
+                complete = writtenDuringLoad.isEmpty() && invalidations.get() == invalidationsAtStart;
+                return new ArrayList<>(byId.values());
+            } finally {
+                loading = false;
+            }
+        }
+    }
+
+    public Product get(int id) throws SQLException {
+        if (isFresh()) {
+            hits.incrementAndGet();
+            return byId.get(id); // null means it does not exist
+        }
+        // Single rows are not cached on their own; getAll fills the cache
+        misses.incrementAndGet();
+        return store.getProduct(id);
+    }
+
+    /**
+     * Keyset page served from the cached catalog, same contract as InventoryStore.getProductsPage.
+     * Without a fresh complete catalog the page comes from the store; paging never
+     * triggers a full load, which for a catalog too big to cache would scan the
+     * whole table on every page.
+     */
+    public Page<Product> getPage(int afterId, int pageSize, String category) throws SQLException {
+        if (!isFresh()) {
+            misses.incrementAndGet();
+            return store.getProductsPage(afterId, pageSize, category);
+        }
+        hits.incrementAndGet();
+        int limit = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        List<Product> list = new ArrayList<>();
+        for (Product p : byId.tailMap(afterId, false).values()) {
+            if (category != null && !category.equals(p.getCategory())) {
+                continue;
+            }
+            if (list.size() == limit) {
+                return new Page<>(list, true);
+            }
+            list.add(p);
+        }
+        return new Page<>(list, false);
+    }
+
+    private boolean isFresh() {
+        return complete && System.currentTimeMillis() - loadedAt < maxAgeMillis;
+    }
+
+    /**
+     * Write-through after an update
+     */
+    public void put(Product p) {
+        byId.replace(p.getId(), copy(p, p.getQuantity()));
+        written(p.getId());
+    }
+
+    /**
+     * Write-through after an insert whose id is known
+     */
+    public void add(Product p) {
+        if (byId.size() < maxSize) {
+            byId.put(p.getId(), copy(p, p.getQuantity()));
+            written(p.getId());
+        } else {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Write-through of the stock level a committed sale left
+     */
+    public void setStock(int id, int quantity) {
+        byId.computeIfPresent(id, (k, p) -> copy(p, quantity));
+        written(id);
+    }
+
+    public void remove(int id) {
+        byId.remove(id);
+        written(id);
+    }
+
+    /**
+     * Products were added whose ids we do not know; reload the catalog on next read
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        complete = false;
+    }
+
+    private void written(int id) {
+        if (loading) {
+            writtenDuringLoad.add(id);
+        }
+    }
+
+    public String getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        long pct = h + m == 0 ? 0 : h * 100 / (h + m);
+        return "entries=" + byId.size() + ", complete=" + complete + ", hits=" + h + ", misses=" + m
+                + " (" + pct + "% hit), fullLoads=" + fullLoads.get();
+    }
+
+    private static Product copy(Product p, int quantity) {
+        return p.withQuantity(quantity);
+    }
+}
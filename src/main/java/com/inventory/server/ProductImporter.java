@@ -0,0 +1,170 @@
+package com.inventory.server;
+
+import com.inventory.common.ImportResult;
+import com.inventory.common.Product;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams products out of CSV text and writes them to the store in chunks.
+ *
+ * Expected columns: id,name,price,quantity,category. The id may be left empty
+ * to create a new product; a non-empty id updates that product or creates it
+ * with that id. A header line starting with "id" or "name" is skipped. Each
+ * chunk is one store transaction, so a failure only loses the current chunk.
+ *
+ * The text is read twice. The first pass only finds the highest explicit id
+ * and reserves it, so an id-less row in an early chunk cannot be given an id
+ * that a later chunk then upserts over.
+ */
+public class ProductImporter {
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    public interface ProgressListener {
+        void onProgress(int rowsRead, int rowsImported);
+    }
+
+    private final InventoryStore store;
+    private final int chunkSize;
+
+    public ProductImporter(InventoryStore store, int chunkSize) {
+        this.store = store;
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportResult importCsv(String csv, ProgressListener listener) throws IOException, SQLException {
+        long start = System.currentTimeMillis();
+        int maxId = maxExplicitId(new StringReader(csv));
+        if (maxId > 0) {
+            store.reserveProductIds(maxId);
+        }
+        BufferedReader in = new BufferedReader(new StringReader(csv));
+
+        List<Product> chunk = new ArrayList<>(chunkSize);
+        List<String> errors = new ArrayList<>();
+        int rowsRead = 0;
+        int imported = 0;
+        int rejected = 0;
+        int lineNo = 0;
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (lineNo == 1 && isHeader(line)) {
+                continue;
+            }
+            rowsRead++;
+            try {
+                chunk.add(parse(line));
+            } catch (IllegalArgumentException e) {
+                rejected++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add("Line " + lineNo + ": " + e.getMessage());
+                }
+            }
+
+            if (chunk.size() >= chunkSize) {
+                imported += store.importProducts(chunk);
+                chunk.clear();
+                if (listener != null) {
+                    listener.onProgress(rowsRead, imported);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            imported += store.importProducts(chunk);
+            if (listener != null) {
+                listener.onProgress(rowsRead, imported);
+            }
+        }
+        return new ImportResult(rowsRead, imported, rejected, errors, System.currentTimeMillis() - start);
+    }
+
+    // Rows the import will reject are skipped here as well
+    private static int maxExplicitId(Reader source) throws IOException {
+        BufferedReader in = new BufferedReader(source);
+        int maxId = 0;
+        int lineNo = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank() || (lineNo == 1 && isHeader(line))) {
+                continue;
+            }
+            try {
+                maxId = Math.max(maxId, parse(line).getId());
+            } catch (IllegalArgumentException e) {
+                // reported by the import pass
+            }
+        }
+        return maxId;
+    }
+
+    private static boolean isHeader(String line) {
+        String first = line.trim().toLowerCase();
+        return first.startsWith("id") || first.startsWith("name") || first.startsWith("\"id") || first.startsWith("\"name");
+    }
+
+    private static Product parse(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() != 5) {
+            throw new IllegalArgumentException("expected 5 columns but found " + fields.size());
+        }
+        String name = fields.get(1).trim();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        try {
+            String idField = fields.get(0).trim();
+            int id = idField.isEmpty() ? 0 : Integer.parseInt(idField);
+            double price = Double.parseDouble(fields.get(2).trim());
+            int quantity = Integer.parseInt(fields.get(3).trim());
+            if (id < 0 || price < 0 || quantity < 0) {
+                throw new IllegalArgumentException("id, price and quantity must not be negative");
+            }
+            String category = fields.get(4).trim();
+            return new Product(id, name, price, quantity, category.isEmpty() ? null : category);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid number (" + e.getMessage() + ")");
+        }
+    }
+
+    /**
+     * Split one CSV line, honouring double quotes and "" escapes
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,267 @@
+package com.inventory.server;
+
+import com.inventory.common.Product;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Inverted index of product names and categories for type-ahead search.
+ *
+ * Names and categories are split into lower-case words, and each word maps to
+ * the ids of the products containing it. The words are kept sorted, so the
+ * products matching a prefix are found from a range of the map instead of by
+ * scanning the catalog. A query matches a product when every query word is a
+ * prefix of one of the product's words.
+ *
+ * A search is bounded by the query rather than the catalog: candidates come
+ * from the query word with the fewest products, a query of one-character
+ * words only matches them as whole words (a single letter would otherwise pull
+ * in a large share of the catalog), and only the best limit matches are kept
+ * while scoring.
+ *
+ * Writes are serialized; searches take no lock and see each product either
+ * before or after a concurrent change to it.
+ */
+public class ProductSearchIndex {
+    // Shortest word that is expanded as a prefix when collecting candidates
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final Comparator<Match> BEST_FIRST = Comparator
+            .comparingInt((Match m) -> m.score).reversed()
+            .thenComparingInt(m -> m.entry.name.length())
+            .thenComparing(m -> m.entry.name)
+            .thenComparingInt(m -> m.entry.id);
+
+    private static class Entry {
+        final int id;
+        final String name;
+        final String joinedName;
+        final String[] nameWords;
+        final String[] categoryWords;
+
+        Entry(Product p) {
+            this.id = p.getId();
+            this.name = p.getName() == null ? "" : p.getName();
+            this.nameWords = words(p.getName());
+            this.joinedName = String.join(" ", nameWords);
+            this.categoryWords = words(p.getCategory());
+        }
+    }
+
+    private static class Match {
+        final Entry entry;
+        final int score;
+
+        Match(Entry entry, int score) {
+            this.entry = entry;
+            this.score = score;
+        }
+    }
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Integer>> postings = new ConcurrentSkipListMap<>();
+
+    public synchronized void rebuild(List<Product> products) {
+        entries.clear();
+        postings.clear();
+        for (Product p : products) {
+            put(p);
+        }
+    }
+
+    public synchronized void put(Product p) {
+        Entry old = entries.get(p.getId());
+        Entry entry = new Entry(p);
+        // Add before removing so the product stays findable throughout
+        for (String word : allWords(entry)) {
+            postings.computeIfAbsent(word, w -> ConcurrentHashMap.newKeySet()).add(entry.id);
+        }
+        entries.put(entry.id, entry);
+        if (old != null) {
+            Set<String> kept = allWords(entry);
+            for (String word : allWords(old)) {
+                if (!kept.contains(word)) {
+                    unpost(word, old.id);
+                }
+            }
+        }
+    }
+
+    public synchronized void remove(int productId) {
+        Entry old = entries.remove(productId);
+        if (old != null) {
+            for (String word : allWords(old)) {
+                unpost(word, productId);
+            }
+        }
+    }
+
+    /**
+     * Ids of the best matches for the query, best first. Name matches rank above
+     * category matches, whole words above prefixes, and a name that starts with
+     * the query above everything else; a query that is a product id ranks that
+     * product first.
+     */
+    public List<Integer> search(String query, int limit) {
+        String[] terms = words(query);
+        List<Integer> ids = new ArrayList<>();
+        if (terms.length == 0 || limit <= 0) {
+            return ids;
+        }
+
+        // Collect candidates from the word with the fewest postings and check
+        // the other words against each candidate's own words. Longer words are
+        // sized first so a short word's prefix range is only walked up to the
+        // best size found so far
+        String[] bySize = terms.clone();
+        Arrays.sort(bySize, Comparator.comparingInt(String::length).reversed());
+        String driver = null;
+        long driverSize = Long.MAX_VALUE;
+        for (String term : bySize) {
+            if (term.length() < MIN_PREFIX_LENGTH && driver == null) {
+                break;
+            }
+            long size = 0;
+            for (Set<Integer> posting : withPrefix(term).values()) {
+                size += posting.size();
+                if (size >= driverSize) {
+                    break;
+                }
+            }
+            if (size < driverSize) {
+                driver = term;
+                driverSize = size;
+            }
+        }
+        boolean exact = driver == null;
+        if (exact) {
+            driver = bySize[0];
+        }
+        Set<Integer> candidates = new HashSet<>();
+        if (exact) {
+            Set<Integer> posting = postings.get(driver);
+            if (posting != null) {
+                candidates.addAll(posting);
+            }
+        } else {
+            for (Set<Integer> posting : withPrefix(driver).values()) {
+                candidates.addAll(posting);
+            }
+        }
+
+        // Keep the best limit matches, worst at the head so it is the one evicted
+        String phrase = String.join(" ", terms);
+        PriorityQueue<Match> best = new PriorityQueue<>(limit, BEST_FIRST.reversed());
+        for (int id : candidates) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                continue;
+            }
+            int score = score(entry, terms);
+            if (score > 0) {
+                if (entry.joinedName.startsWith(phrase)) {
+                    score += 10;
+                }
+                Match match = new Match(entry, score);
+                if (best.size() < limit) {
+                    best.add(match);
+                } else if (BEST_FIRST.compare(match, best.peek()) < 0) {
+                    best.poll();
+                    best.add(match);
+                }
+            }
+        }
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(BEST_FIRST);
+
+        if (terms.length == 1 && terms[0].chars().allMatch(Character::isDigit) && terms[0].length() < 10) {
+            int id = Integer.parseInt(terms[0]);
+            if (entries.containsKey(id)) {
+                ids.add(id);
+            }
+        }
+        for (Match m : matches) {
+            if (ids.size() == limit) {
+                break;
+            }
+            if (!ids.contains(m.entry.id)) {
+                ids.add(m.entry.id);
+            }
+        }
+        return ids;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Sum of each term's best hit, or 0 if some term matches nothing
+    private static int score(Entry entry, String[] terms) {
+        int total = 0;
+        for (String term : terms) {
+            int best = Math.max(bestHit(entry.nameWords, term, 3, 2), bestHit(entry.categoryWords, term, 1, 1));
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static int bestHit(String[] words, String term, int exact, int prefix) {
+        int best = 0;
+        for (String word : words) {
+            if (word.equals(term)) {
+                return exact;
+            }
+            if (word.startsWith(term)) {
+                best = prefix;
+            }
+        }
+        return best;
+    }
+
+    private NavigableMap<String, Set<Integer>> withPrefix(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private void unpost(String word, int productId) {
+        postings.computeIfPresent(word, (w, ids) -> {
+            ids.remove(productId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static Set<String> allWords(Entry entry) {
+        Set<String> all = new HashSet<>();
+        for (String w : entry.nameWords) {
+            all.add(w);
+        }
+        for (String w : entry.categoryWords) {
+            all.add(w);
+        }
+        return all;
+    }
+
+    private static String[] words(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        List<String> list = new ArrayList<>();
+        for (String w : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!w.isEmpty()) {
+                list.add(w);
+            }
+        }
+        return list.toArray(new String[0]);
+    }
+}
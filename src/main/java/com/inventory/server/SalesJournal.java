@@ -0,0 +1,238 @@
+package com.inventory.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of sales taken from hot-product counters but not yet
+ * written to the database.
+ *
+ * append() returns once the sale is on disk. Appends are group committed: a
+ * single writer thread writes whatever has queued up and forces it with one
+ * fsync, so concurrent sales share the cost of the sync. Durable entries stay
+ * available through unflushed() until checkpoint() is told the database has
+ * them; the file is truncated whenever everything in it has been checkpointed.
+ */
+class SalesJournal {
+    // seq, product id, quantity, sale time, crc
+    private static final int RECORD_SIZE = 8 + 4 + 4 + 8 + 4;
+
+    static class Entry {
+        final long seq;
+        final int productId;
+        final int quantity;
+        final long soldAt;
+
+        Entry(long seq, int productId, int quantity, long soldAt) {
+            this.seq = seq;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.soldAt = soldAt;
+        }
+    }
+
+    private final FileChannel channel;
+    private final Thread writer;
+
+    private final Object lock = new Object();
+    private List<Entry> queued = new ArrayList<>();
+    private final List<Entry> unflushed = new ArrayList<>();
+    private long lastSeq;
+    private long durableSeq;
+    private IOException failure;
+    private volatile boolean running = true;
+
+    // Guards the file itself; held by the writer while writing and by checkpoint while truncating
+    private final Object fileLock = new Object();
+    private long writtenSeq;
+
+    /**
+     * Open the journal and return it with every intact entry already in the file
+     * queued as unflushed; seq numbering continues after max(lastSeq, entries)
+     */
+    SalesJournal(Path path, long lastCheckpointedSeq) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long seq = lastCheckpointedSeq;
+        for (Entry e : readAll()) {
+            if (e.seq > lastCheckpointedSeq) {
+                unflushed.add(e);
+            }
+            seq = Math.max(seq, e.seq);
+        }
+        lastSeq = seq;
+        durableSeq = seq;
+        writtenSeq = seq;
+        channel.position(channel.size());
+
+        writer = new Thread(this::writeLoop, "sales-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Record a sale and wait until it is durable
+     */
+    void append(int productId, int quantity) throws IOException {
+        synchronized (lock) {
+            if (failure != null) {
+                throw new IOException("Sales journal is unavailable", failure);
+            }
+            long seq = ++lastSeq;
+            queued.add(new Entry(seq, productId, quantity, System.currentTimeMillis()));
+            lock.notifyAll();
+            boolean interrupted = false;
+            while (durableSeq < seq && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (durableSeq < seq) {
+                throw new IOException("Could not write sales journal", failure);
+            }
+        }
+    }
+
+    /**
+     * Durable entries not yet checkpointed, oldest first
+     */
+    List<Entry> unflushed() {
+        synchronized (lock) {
+            return new ArrayList<>(unflushed);
+        }
+    }
+
+    /**
+     * The database now holds every entry up to seq
+     */
+    void checkpoint(long seq) throws IOException {
+        synchronized (lock) {
+            unflushed.removeIf(e -> e.seq <= seq);
+        }
+        synchronized (fileLock) {
+            if (writtenSeq <= seq) {
+                channel.truncate(0);
+                channel.position(0);
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            List<Entry> batch;
+            synchronized (lock) {
+                while (queued.isEmpty() && running) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // keep draining until close() says stop
+                    }
+                }
+                if (queued.isEmpty()) {
+                    return;
+                }
+                batch = queued;
+                queued = new ArrayList<>();
+            }
+            try {
+                synchronized (fileLock) {
+                    ByteBuffer buf = ByteBuffer.allocate(batch.size() * RECORD_SIZE);
+                    for (Entry e : batch) {
+                        encode(e, buf);
+                    }
+                    buf.flip();
+                    while (buf.hasRemaining()) {
+                        channel.write(buf);
+                    }
+                    channel.force(false);
+                    writtenSeq = batch.get(batch.size() - 1).seq;
+                }
+                synchronized (lock) {
+                    unflushed.addAll(batch);
+                    durableSeq = batch.get(batch.size() - 1).seq;
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    private List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        long position = 0;
+        while (true) {
+            buf.clear();
+            int read = 0;
+            while (buf.hasRemaining()) {
+                int n = channel.read(buf, position + read);
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+            }
+            if (read < RECORD_SIZE) {
+                break; // end of file, or a record torn by a crash
+            }
+            buf.flip();
+            Entry e = new Entry(buf.getLong(), buf.getInt(), buf.getInt(), buf.getLong());
+            if (buf.getInt() != crc(e)) {
+                System.out.println("Sales journal: ignoring damaged record at offset " + position);
+                break;
+            }
+            entries.add(e);
+            position += RECORD_SIZE;
+        }
+        if (position < channel.size()) {
+            channel.truncate(position);
+        }
+        return entries;
+    }
+
+    private static void encode(Entry e, ByteBuffer buf) {
+        buf.putLong(e.seq).putInt(e.productId).putInt(e.quantity).putLong(e.soldAt).putInt(crc(e));
+    }
+
+    private static int crc(Entry e) {
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE - 4);
+        buf.putLong(e.seq).putInt(e.productId).putInt(e.quantity).putLong(e.soldAt);
+        CRC32 crc = new CRC32();
+        crc.update(buf.array());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Write out anything queued and close the file
+     */
+    void close() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            writer.join(5000);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.inventory.server;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned schema migrations.
+ *
+ * Applied migrations are recorded in schema_version together with a checksum of
+ * their SQL. On startup every pending migration is applied in version order; an
+ * applied migration whose SQL has since been edited is reported and stops the
+ * run, so add a new migration instead of changing an old one.
+ */
+public class SchemaMigrator {
+    // Duplicate table / column / index: the object exists because the database
+    // predates versioning (or a previous run died half-way), so treat as applied
+    private static final Set<Integer> ALREADY_APPLIED_ERRORS = Set.of(1050, 1060, 1061);
+    private static final String LOCK_NAME = "inventory_schema_migration";
+
+    private final Connection conn;
+
+    public SchemaMigrator(Connection conn) {
+        this.conn = conn;
+    }
+
+    static List<Migration> migrations() {
+        List<Migration> list = new ArrayList<>();
+
+        list.add(new Migration(1, "Baseline products, sales and users tables",
+                "CREATE TABLE IF NOT EXISTS products (" +
+                        "id INT AUTO_INCREMENT PRIMARY KEY," +
+                        "name VARCHAR(100) NOT NULL," +
+                        "price DOUBLE NOT NULL," +
+                        "quantity INT NOT NULL," +
+                        "category VARCHAR(50))",
+                "CREATE TABLE IF NOT EXISTS sales (" +
+                        "id INT AUTO_INCREMENT PRIMARY KEY," +
+                        "product_id INT," +
+                        "quantity INT," +
+                        "total_price DOUBLE," +
+                        "sale_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP)",
+                "ALTER TABLE sales ADD COLUMN product_name VARCHAR(100)",
+                "CREATE TABLE IF NOT EXISTS users (" +
+                        "id INT AUTO_INCREMENT PRIMARY KEY," +
+                        "username VARCHAR(50) NOT NULL UNIQUE," +
+                        "email VARCHAR(100) NOT NULL UNIQUE," +
+                        "password VARCHAR(255) NOT NULL," +
+                        "full_name VARCHAR(100) NOT NULL," +
+                        "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"));
+
+        list.add(new Migration(2, "Orders for multi-line cart checkout",
+                "CREATE TABLE IF NOT EXISTS orders (" +
+                        "id INT AUTO_INCREMENT PRIMARY KEY," +
+                        "total_price DOUBLE NOT NULL," +
+                        "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)",
+                "ALTER TABLE sales ADD COLUMN order_id INT"));
+
+        list.add(new Migration(3, "Indexes for reporting and catalog queries",
+                "CREATE INDEX idx_sales_sale_date ON sales (sale_date)",
+                "CREATE INDEX idx_sales_product_date ON sales (product_id, sale_date)",
+                "CREATE INDEX idx_products_category ON products (category)",
+                "CREATE INDEX idx_products_name ON products (name)"));
+
+        // Existing rows get version = id so a sync from version 0 returns the whole catalog
+        list.add(new Migration(4, "Change versions and tombstones for delta catalog sync",
+                "ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0",
+                "UPDATE products SET version = id WHERE version = 0",
+                "CREATE INDEX idx_products_version ON products (version)",
+                "CREATE TABLE IF NOT EXISTS product_tombstones (" +
+                        "product_id INT PRIMARY KEY," +
+                        "version BIGINT NOT NULL," +
+                        "INDEX idx_tombstones_version (version))"));
+
+        list.add(new Migration(5, "Checkpoint of hot-product sales journal",
+                "CREATE TABLE IF NOT EXISTS sales_journal_checkpoint (" +
+                        "id INT PRIMARY KEY," +
+                        "last_seq BIGINT NOT NULL)",
+                "INSERT IGNORE INTO sales_journal_checkpoint (id, last_seq) VALUES (1, 0)"));
+
+        list.add(new Migration(6, "Per-product reorder level",
+                "ALTER TABLE products ADD COLUMN reorder_level INT NOT NULL DEFAULT 5"));
+
+        // Rollups are rebuilt from sales here; from then on every sale updates them in its own transaction
+        list.add(new Migration(7, "Hourly and daily sales rollups",
+                "CREATE TABLE IF NOT EXISTS sales_rollup_hourly (" +
+                        "bucket DATETIME NOT NULL," +
+                        "product_id INT NOT NULL," +
+                        "product_name VARCHAR(100)," +
+                        "units BIGINT NOT NULL," +
+                        "revenue DOUBLE NOT NULL," +
+                        "transactions BIGINT NOT NULL," +
+                        "PRIMARY KEY (bucket, product_id))",
+                "CREATE TABLE IF NOT EXISTS sales_rollup_daily (" +
+                        "bucket DATE NOT NULL," +
+                        "product_id INT NOT NULL," +
+                        "product_name VARCHAR(100)," +
+                        "units BIGINT NOT NULL," +
+                        "revenue DOUBLE NOT NULL," +
+                        "transactions BIGINT NOT NULL," +
+                        "PRIMARY KEY (bucket, product_id))",
+                "DELETE FROM sales_rollup_hourly",
+                "INSERT INTO sales_rollup_hourly (bucket, product_id, product_name, units, revenue, transactions) " +
+                        "SELECT DATE_FORMAT(sale_date, '%Y-%m-%d %H:00:00'), COALESCE(product_id, 0), " +
+                        "MAX(product_name), SUM(quantity), SUM(total_price), COUNT(*) FROM sales GROUP BY 1, 2",
+                "DELETE FROM sales_rollup_daily",
+                "INSERT INTO sales_rollup_daily (bucket, product_id, product_name, units, revenue, transactions) " +
+                        "SELECT DATE(sale_date), COALESCE(product_id, 0), " +
+                        "MAX(product_name), SUM(quantity), SUM(total_price), COUNT(*) FROM sales GROUP BY 1, 2"));
+
+        // Starts from the highest version already handed out by the in-process clock
+        list.add(new Migration(8, "Change version counter shared by every server",
+                "CREATE TABLE IF NOT EXISTS change_clock (" +
+                        "id INT PRIMARY KEY," +
+                        "version BIGINT NOT NULL)",
+                "INSERT IGNORE INTO change_clock (id, version) SELECT 1, GREATEST(" +
+                        "(SELECT COALESCE(MAX(version), 0) FROM products), " +
+                        "(SELECT COALESCE(MAX(version), 0) FROM product_tombstones))"));
+
+        // A mark is the clock value at mark_at; once the mark is old enough every
+        // version up to it has committed or rolled back, and it becomes safe_version
+        list.add(new Migration(9, "Safe change version for delta sync",
+                "ALTER TABLE change_clock ADD COLUMN mark_version BIGINT NOT NULL DEFAULT 0",
+                "ALTER TABLE change_clock ADD COLUMN mark_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)",
+                "ALTER TABLE change_clock ADD COLUMN safe_version BIGINT NOT NULL DEFAULT 0",
+                "UPDATE change_clock SET mark_version = version, mark_at = NOW(3), safe_version = version"));
+
+        // Accounts made before roles keep the catalog rights every account had
+        list.add(new Migration(10, "User roles",
+                "ALTER TABLE users ADD COLUMN role VARCHAR(16) NOT NULL DEFAULT 'CASHIER'",
+                "UPDATE users SET role = 'MANAGER'"));
+
+        return list;
+    }
+
+    public void migrate() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INT PRIMARY KEY," +
+                    "description VARCHAR(200) NOT NULL," +
+                    "checksum BIGINT NOT NULL," +
+                    "execution_ms INT NOT NULL," +
+                    "installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+
+        // Only one server instance migrates at a time
+        if (!acquireLock()) {
+            throw new SQLException("Timed out waiting for schema migration lock");
+        }
+        try {
+            Map<Integer, Long> applied = loadApplied();
+            int pending = 0;
+            for (Migration m : migrations()) {
+                Long checksum = applied.get(m.version);
+                if (checksum == null) {
+                    apply(m);
+                    pending++;
+                } else if (checksum != m.checksum()) {
+                    throw new SQLException("Checksum mismatch for migration v" + m.version + " ("
+                            + m.description + "): recorded " + checksum + ", expected " + m.checksum());
+                }
+            }
+            System.out.println("Schema up to date (" + pending + " migrations applied).");
+        } finally {
+            releaseLock();
+        }
+    }
+
+    private void apply(Migration m) throws SQLException {
+        System.out.println("Applying migration v" + m.version + ": " + m.description);
+        long start = System.currentTimeMillis();
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : m.statements) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (!ALREADY_APPLIED_ERRORS.contains(e.getErrorCode())) {
+                        throw e;
+                    }
+                }
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+            pstmt.setInt(1, m.version);
+            pstmt.setString(2, m.description);
+            pstmt.setLong(3, m.checksum());
+            pstmt.setInt(4, (int) (System.currentTimeMillis() - start));
+            pstmt.executeUpdate();
+        }
+    }
+
+    private Map<Integer, Long> loadApplied() throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private boolean acquireLock() throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT GET_LOCK(?, 60)")) {
+            pstmt.setString(1, LOCK_NAME);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private void releaseLock() throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            pstmt.setString(1, LOCK_NAME);
+            pstmt.executeQuery().close();
+        }
+    }
+
+    static class Migration {
+        final int version;
+        final String description;
+        final String[] statements;
+
+        Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+
+        long checksum() {
+            CRC32 crc = new CRC32();
+            for (String sql : statements) {
+                crc.update(sql.getBytes(StandardCharsets.UTF_8));
+                crc.update('\n');
+            }
+            return crc.getValue();
+        }
+    }
+}
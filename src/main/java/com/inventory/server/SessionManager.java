@@ -0,0 +1,108 @@
+package com.inventory.server;
+
+import com.inventory.common.SessionExpiredException;
+import com.inventory.common.User;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logged-in sessions, held in memory only.
+ *
+ * Login hands out a random opaque token; every service call looks it up here,
+ * so checking a session never touches the database. A session ends after
+ * idleMillis without use or maxAgeMillis after login, whichever comes first.
+ * Sessions do not survive a server restart, so clients must log in again.
+ */
+public class SessionManager {
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int TOKEN_BYTES = 32;
+
+    private final long idleMillis;
+    private final long maxAgeMillis;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService housekeeper;
+
+    private static class Session {
+        final User user;
+        final long createdAt;
+        volatile long lastUsed;
+
+        Session(User user, long now) {
+            this.user = user;
+            this.createdAt = now;
+            this.lastUsed = now;
+        }
+    }
+
+    public SessionManager(long idleMillis, long maxAgeMillis) {
+        this.idleMillis = idleMillis;
+        this.maxAgeMillis = maxAgeMillis;
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::evictExpired, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Start a session for an authenticated user and return its token
+     */
+    public String open(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user, System.currentTimeMillis()));
+        return token;
+    }
+
+    /**
+     * The user behind a live session; refreshes its idle timer
+     */
+    public User validate(String token) throws SessionExpiredException {
+        Session session = token == null ? null : sessions.get(token);
+        long now = System.currentTimeMillis();
+        if (session == null || isExpired(session, now)) {
+            if (session != null) {
+                sessions.remove(token);
+            }
+            throw new SessionExpiredException();
+        }
+        session.lastUsed = now;
+        return session.user;
+    }
+
+    public void close(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    public int getActiveCount() {
+        return sessions.size();
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now - session.lastUsed > idleMillis || now - session.createdAt > maxAgeMillis;
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Session> it = sessions.values().iterator();
+        while (it.hasNext()) {
+            if (isExpired(it.next(), now)) {
+                it.remove();
+            }
+        }
+    }
+
+    public void shutdown() {
+        housekeeper.shutdownNow();
+    }
+}
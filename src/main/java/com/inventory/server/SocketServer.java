@@ -1,63 +1,379 @@
 package com.inventory.server;
 
-import java.io.*;
-import java.net.*;
-import java.util.*;
-import java.util.concurrent.*;
+import com.inventory.common.CatalogEvent;
+import com.inventory.common.EventCodec;
+import com.inventory.common.Notice;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Pushes notices and catalog events to connected clients as EventCodec frames.
+ *
+ * All connections are served by one selector thread with non-blocking
+ * channels, so an idle client costs a socket and a small buffer rather than a
+ * thread. broadcast() and publish() only append the encoded frame to a dispatch
+ * queue; the selector thread copies it to each client's outbound queue and
+ * writes as much as each socket will take, so callers pay the same whatever the
+ * number of clients.
+ *
+ * Outbound queues are bounded. When a client's queue is full, notices for
+ * it are dropped and its queued catalog events are replaced by one
+ * CATALOG_RELOADED, which makes the client resync instead of replaying every
+ * change it missed. A client whose queue stays full for evictAfterMillis is
+ * disconnected; it reconnects and resyncs like any new client.
+ *
+ * With a coalescing window, stock changes and sale and low-stock notices are
+ * first merged per product by an EventCoalescer, so a product selling many
+ * times a second costs clients one update per window. Sequence numbers are
+ * assigned as events leave the coalescer, so clients still see a gapless
+ * stream.
+ */
 public class SocketServer {
     private static final int PORT = 9090;
-    private final Set<PrintWriter> clientWriters = ConcurrentHashMap.newKeySet();
+    // Clients only send the odd line; anything longer without a newline is dropped
+    private static final int MAX_INBOUND_LINE = 8 * 1024;
 
-    public void start() {
-        new Thread(() -> {
-            try (ServerSocket serverSocket = new ServerSocket(PORT)) {
-                System.out.println("Socket Server started on port " + PORT);
-                while (true) {
-                    new Handler(serverSocket.accept()).start();
-                }
-            } catch (IOException e) {
+    private final int maxClients;
+    private final int maxQueued;
+    private final long evictAfterMillis;
+    // null when coalescing is off
+    private final EventCoalescer coalescer;
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final Queue<Outgoing> dispatchQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private Selector selector;
+
+    // Guards sequence assignment so events enter the dispatch queue in sequence order
+    private final Object eventLock = new Object();
+    private long lastSeq = 0;
+    // Last event handed to clients; selector thread only
+    private long dispatchedSeq = 0;
+
+    private final AtomicLong droppedNotices = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    // One frame on its way out; seq is 0 for notices
+    private static class Outgoing {
+        final ByteBuffer frame;
+        final long seq;
+
+        Outgoing(ByteBuffer frame, long seq) {
+            this.frame = frame;
+            this.seq = seq;
+        }
+    }
+
+    public SocketServer(int maxClients, int maxQueued, long evictAfterMillis, long coalesceMillis) {
+        this.maxClients = maxClients;
+        this.maxQueued = Math.max(2, maxQueued);
+        this.evictAfterMillis = evictAfterMillis;
+        this.coalescer = coalesceMillis > 0 ? new EventCoalescer(coalesceMillis, this::enqueue, this::enqueue) : null;
+    }
+
+    public void start() throws IOException {
+        selector = Selector.open();
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(PORT));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        System.out.println("Socket Server started on port " + PORT + " (max " + maxClients + " clients, "
+                + maxQueued + " queued events each" + (coalescer == null ? "" : ", coalescing") + ")");
+
+        Thread loop = new Thread(() -> {
+            try {
+                selectLoop(serverChannel);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Socket Server: selector thread stopped, clients get no more notifications");
                 e.printStackTrace();
             }
-        }).start();
+        }, "socket-server-selector");
+        loop.setDaemon(true);
+        loop.start();
+    }
+
+    public void broadcast(Notice notice) {
+        if (coalescer != null) {
+            coalescer.broadcast(notice);
+        } else {
+            enqueue(notice);
+        }
     }
 
-    public void broadcast(String message) {
-        for (PrintWriter writer : clientWriters) {
-            writer.println(message);
+    /**
+     * Send a catalog change to every client, stamped with the next sequence number
+     */
+    public void publish(CatalogEvent event) {
+        if (coalescer != null) {
+            coalescer.publish(event);
+        } else {
+            enqueue(event);
         }
     }
 
-    private class Handler extends Thread {
-        private Socket socket;
-        private PrintWriter out;
+    private void enqueue(Notice notice) {
+        dispatch(new Outgoing(ByteBuffer.wrap(EventCodec.encode(notice)), 0));
+    }
 
-        public Handler(Socket socket) {
-            this.socket = socket;
+    private void enqueue(CatalogEvent event) {
+        synchronized (eventLock) {
+            long seq = ++lastSeq;
+            dispatchQueue.add(new Outgoing(ByteBuffer.wrap(EventCodec.encode(event.withSeq(seq))), seq));
         }
+        wakeSelector();
+    }
 
-        public void run() {
-            try {
-                out = new PrintWriter(socket.getOutputStream(), true);
-                clientWriters.add(out);
+    public int getClientCount() {
+        return clients.size();
+    }
 
-                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                String input;
-                while ((input = in.readLine()) != null) {
-                    System.out.println("Received: " + input);
-                    // Echo back or handle commands if needed
+    /**
+     * Connection and outbound queue statistics, for monitoring
+     */
+    public String getStats() {
+        int total = 0;
+        int deepest = 0;
+        for (Client client : clients) {
+            int depth = client.depth;
+            total += depth;
+            deepest = Math.max(deepest, depth);
+        }
+        return "clients=" + clients.size() + ", queued=" + total + ", deepestQueue=" + deepest
+                + ", droppedNotices=" + droppedNotices.get() + ", coalesced=" + coalesced.get()
+                + ", evicted=" + evicted.get();
+    }
+
+    private void dispatch(Outgoing out) {
+        dispatchQueue.add(out);
+        wakeSelector();
+    }
+
+    // One wakeup covers everything queued before the selector drains the queue
+    private void wakeSelector() {
+        if (wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    private void selectLoop(ServerSocketChannel serverChannel) throws IOException {
+        while (true) {
+            selector.select();
+            wakeupPending.set(false);
+            fanOut();
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
                 }
-            } catch (IOException e) {
-                // System.out.println("Client disconnected");
-            } finally {
-                if (out != null) {
-                    clientWriters.remove(out);
+                if (key.isAcceptable()) {
+                    try {
+                        accept(serverChannel);
+                    } catch (IOException | RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                    continue;
                 }
+                Client client = (Client) key.attachment();
                 try {
-                    socket.close();
+                    if (key.isReadable()) {
+                        client.read();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        client.write();
+                    }
                 } catch (IOException e) {
+                    client.close();
+                } catch (RuntimeException e) {
+                    // e.g. CancelledKeyException after a concurrent close; only this client is lost
+                    System.out.println("Socket Server: dropping " + client.describe() + " after " + e);
+                    client.close();
+                }
+            }
+        }
+    }
+
+    // Copy everything dispatched so far to each client's queue, then write what the sockets take
+    private void fanOut() {
+        Outgoing out;
+        boolean any = false;
+        long now = System.currentTimeMillis();
+        while ((out = dispatchQueue.poll()) != null) {
+            any = true;
+            if (out.seq > 0) {
+                dispatchedSeq = out.seq;
+            }
+            for (Client client : clients) {
+                client.offer(out, now);
+            }
+        }
+        if (!any) {
+            return;
+        }
+        for (Client client : clients) {
+            if (client.depth > 0) {
+                try {
+                    client.write();
+                } catch (IOException | RuntimeException e) {
+                    client.close();
                 }
             }
         }
     }
+
+    private void accept(ServerSocketChannel serverChannel) throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        if (clients.size() >= maxClients) {
+            System.out.println("Socket Server: refusing " + channel.getRemoteAddress() + ", " + maxClients
+                    + " clients already connected");
+            channel.close();
+            return;
+        }
+        channel.configureBlocking(false);
+        Client client = new Client(channel);
+        client.key = channel.register(selector, SelectionKey.OP_READ, client);
+        // Tell the client where the event stream starts for it: every event
+        // fanned out from here on is newer than the last one already handed out
+        client.offer(new Outgoing(ByteBuffer.wrap(EventCodec.encode(CatalogEvent.hello(dispatchedSeq))), 0), System.currentTimeMillis());
+        clients.add(client);
+        client.write();
+    }
+
+    // Everything but depth is touched by the selector thread only
+    private class Client {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private final ByteBuffer inbound = ByteBuffer.allocate(MAX_INBOUND_LINE);
+        // Each element is a private view of a shared encoded frame
+        private final ArrayDeque<Outgoing> outbound = new ArrayDeque<>();
+        private volatile int depth = 0;
+        private long fullSince = 0;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void offer(Outgoing out, long now) {
+            if (outbound.size() >= maxQueued) {
+                // Full only counts if the socket cannot take any of it either
+                try {
+                    write();
+                } catch (IOException | RuntimeException e) {
+                    close();
+                    return;
+                }
+            }
+            if (outbound.size() < maxQueued) {
+                outbound.add(new Outgoing(out.frame.duplicate(), out.seq));
+                depth = outbound.size();
+                return;
+            }
+            if (fullSince == 0) {
+                fullSince = now;
+            } else if (now - fullSince > evictAfterMillis) {
+                System.out.println("Socket Server: disconnecting " + describe() + ", outbound queue full for "
+                        + (now - fullSince) + " ms");
+                evicted.incrementAndGet();
+                close();
+                return;
+            }
+            if (out.seq == 0) {
+                droppedNotices.incrementAndGet();
+                return;
+            }
+            // Keep the frame being written (if any) and the notices; the events
+            // collapse into one reload stamped with the newest sequence number
+            Outgoing head = outbound.peekFirst();
+            boolean headStarted = head.frame.position() > 0;
+            Iterator<Outgoing> it = outbound.iterator();
+            if (headStarted) {
+                it.next();
+            }
+            while (it.hasNext()) {
+                if (it.next().seq > 0) {
+                    it.remove();
+                }
+            }
+            outbound.add(new Outgoing(ByteBuffer.wrap(EventCodec.encode(CatalogEvent.catalogReloaded().withSeq(out.seq))), out.seq));
+            depth = outbound.size();
+            coalesced.incrementAndGet();
+        }
+
+        void write() throws IOException {
+            while (!outbound.isEmpty()) {
+                ByteBuffer head = outbound.peekFirst().frame;
+                channel.write(head);
+                if (head.hasRemaining()) {
+                    // Socket buffer full; carry on when it has room
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    depth = outbound.size();
+                    return;
+                }
+                outbound.pollFirst();
+                if (outbound.size() <= maxQueued / 2) {
+                    fullSince = 0; // catching up
+                }
+            }
+            depth = 0;
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        void read() throws IOException {
+            if (channel.read(inbound) < 0) {
+                close();
+                return;
+            }
+            inbound.flip();
+            int start = 0;
+            for (int i = inbound.position(); i < inbound.limit(); i++) {
+                if (inbound.get(i) == '\n') {
+                    String input = new String(inbound.array(), start, i - start, StandardCharsets.UTF_8).trim();
+                    System.out.println("Received: " + input);
+                    start = i + 1;
+                }
+            }
+            inbound.position(start);
+            inbound.compact();
+            if (!inbound.hasRemaining()) {
+                inbound.clear();
+            }
+        }
+
+        private String describe() {
+            try {
+                return String.valueOf(channel.getRemoteAddress());
+            } catch (IOException e) {
+                return "client";
+            }
+        }
+
+        void close() {
+            clients.remove(this);
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+            }
+        }
+    }
 }
@@ -0,0 +1,81 @@
+package com.inventory.server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Weighted Space-Saving summary: the heaviest keys of a stream in a fixed
+ * number of counters.
+ *
+ * When every counter is in use, a new key takes over the smallest counter and
+ * inherits its count as error. A counter's count therefore never underestimates
+ * its key's true weight and overestimates it by at most its error, and every key
+ * heavier than total / capacity is guaranteed to hold a counter. Not thread-safe.
+ */
+class SpaceSaving {
+    private static final Comparator<Counter> SMALLEST_FIRST = Comparator
+            .comparingDouble((Counter c) -> c.count)
+            .thenComparingInt(c -> c.key);
+
+    static class Counter {
+        final int key;
+        final double count;
+        final double error;
+
+        Counter(int key, double count, double error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    private final int capacity;
+    private final Map<Integer, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(SMALLEST_FIRST);
+
+    SpaceSaving(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    void add(int key, double weight) {
+        Counter old = counters.get(key);
+        Counter updated;
+        if (old != null) {
+            byCount.remove(old);
+            updated = new Counter(key, old.count + weight, old.error);
+        } else if (counters.size() < capacity) {
+            updated = new Counter(key, weight, 0);
+        } else {
+            Counter smallest = byCount.pollFirst();
+            counters.remove(smallest.key);
+            updated = new Counter(key, smallest.count + weight, smallest.count);
+        }
+        counters.put(key, updated);
+        byCount.add(updated);
+    }
+
+    Counter get(int key) {
+        return counters.get(key);
+    }
+
+    /**
+     * Most any key without a counter can weigh: the smallest count once all
+     * counters are in use, otherwise 0 because every key seen has a counter
+     */
+    double unmonitoredBound() {
+        return counters.size() < capacity ? 0 : byCount.first().count;
+    }
+
+    Collection<Counter> counters() {
+        return new ArrayList<>(counters.values());
+    }
+
+    void clear() {
+        counters.clear();
+        byCount.clear();
+    }
+}
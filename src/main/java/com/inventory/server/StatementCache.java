@@ -0,0 +1,165 @@
+package com.inventory.server;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL.
+ *
+ * Statements handed out are proxies whose close() only resets parameters and
+ * batches, so callers keep closing them as usual. A connection is used by one
+ * thread at a time, so the cache itself needs no locking.
+ */
+class StatementCache {
+    private final Connection physical;
+    private final int maxSize;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    // Shared across every connection of the pool
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    StatementCache(Connection physical, int maxSize, AtomicLong hits, AtomicLong misses) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        if (maxSize <= 0) {
+            return physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+        String key = autoGeneratedKeys + ":" + sql;
+        CachedStatement cached = statements.get(key);
+        if (cached != null && cached.inUse) {
+            // Same SQL opened twice at once; hand out an uncached statement
+            misses.incrementAndGet();
+            return physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+        if (cached == null || cached.statement.isClosed()) {
+            misses.incrementAndGet();
+            cached = new CachedStatement(physical.prepareStatement(sql, autoGeneratedKeys));
+            statements.put(key, cached);
+            evictOverflow();
+        } else {
+            hits.incrementAndGet();
+        }
+        cached.inUse = true;
+        return cached.newHandle();
+    }
+
+    private void evictOverflow() {
+        Iterator<CachedStatement> it = statements.values().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            CachedStatement eldest = it.next();
+            it.remove();
+            if (eldest.inUse) {
+                eldest.evicted = true; // closed when the caller releases it
+            } else {
+                closeQuietly(eldest.statement);
+            }
+        }
+    }
+
+    void close() {
+        for (CachedStatement cached : statements.values()) {
+            closeQuietly(cached.statement);
+        }
+        statements.clear();
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // connection is probably gone already
+        }
+    }
+
+    private static class CachedStatement {
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        PreparedStatement newHandle() {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    new Handle(this));
+        }
+    }
+
+    private static class Handle implements InvocationHandler {
+        private final CachedStatement cached;
+        private boolean handleClosed = false;
+
+        Handle(CachedStatement cached) {
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return handleClosed || cached.statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (handleClosed) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void release() throws SQLException {
+            cached.inUse = false;
+            if (cached.evicted) {
+                cached.statement.close();
+                return;
+            }
+            try {
+                ResultSet open = cached.statement.getResultSet();
+                if (open != null) {
+                    open.close();
+                }
+                cached.statement.clearParameters();
+                cached.statement.clearBatch();
+            } catch (SQLException e) {
+                cached.statement.close();
+            }
+        }
+    }
+}
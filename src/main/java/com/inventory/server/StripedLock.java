@@ -0,0 +1,54 @@
+package com.inventory.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks selected by key hash.
+ *
+ * Writes to the same product queue up here instead of piling up on InnoDB row
+ * locks, while writes to different products proceed in parallel. The database
+ * transaction remains the source of truth for correctness.
+ */
+public class StripedLock {
+    private final ReentrantLock[] stripes;
+
+    public StripedLock(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock get(int key) {
+        return stripes[index(key)];
+    }
+
+    /**
+     * The distinct locks for several keys, in stripe order. Taking them in this
+     * order lets callers hold more than one without deadlocking each other.
+     */
+    public List<ReentrantLock> getAll(Iterable<Integer> keys) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (int key : keys) {
+            indexes.add(index(key));
+        }
+        List<ReentrantLock> locks = new ArrayList<>();
+        for (int i : indexes) {
+            locks.add(stripes[i]);
+        }
+        return locks;
+    }
+
+    private int index(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+}
@@ -0,0 +1,138 @@
+package com.inventory.server;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stock level of one product split across several buckets, each on its own
+ * cache line, so concurrent sales decrement different memory and never lock.
+ *
+ * A sale that finds no bucket holding enough stock pools all buckets under the
+ * counter's monitor and spreads what is left back out. Closing the counter
+ * stops new sales and waits for sales already inside enter()/exit() to finish.
+ */
+class StripedStockCounter {
+    private static final int PAD = 8; // longs per 64-byte cache line
+
+    enum Result {
+        TAKEN,
+        INSUFFICIENT,
+        CLOSED
+    }
+
+    private final int buckets;
+    private final AtomicLongArray slots;
+    private final LongAdder inFlight = new LongAdder();
+    private volatile boolean closed = false;
+
+    StripedStockCounter(int buckets, long stock) {
+        this.buckets = Math.max(1, buckets);
+        this.slots = new AtomicLongArray(this.buckets * PAD);
+        spread(stock);
+    }
+
+    /**
+     * Register a sale in progress; false if the counter is closed. Every true
+     * must be paired with exit() once the sale is recorded.
+     */
+    boolean enter() {
+        inFlight.increment();
+        if (closed) {
+            inFlight.decrement();
+            return false;
+        }
+        return true;
+    }
+
+    void exit() {
+        inFlight.decrement();
+    }
+
+    /**
+     * Take stock; call only between enter() and exit()
+     */
+    Result tryTake(int quantity) {
+        if (closed) {
+            return Result.CLOSED;
+        }
+        int start = ThreadLocalRandom.current().nextInt(buckets);
+        for (int i = 0; i < buckets; i++) {
+            int slot = ((start + i) % buckets) * PAD;
+            long current;
+            while ((current = slots.get(slot)) >= quantity) {
+                if (slots.compareAndSet(slot, current, current - quantity)) {
+                    return Result.TAKEN;
+                }
+            }
+        }
+        return rebalanceAndTake(quantity);
+    }
+
+    private synchronized Result rebalanceAndTake(int quantity) {
+        long total = drain();
+        if (total >= quantity) {
+            spread(total - quantity);
+            return Result.TAKEN;
+        }
+        spread(total);
+        return Result.INSUFFICIENT;
+    }
+
+    /**
+     * Return stock taken for a sale that did not go through
+     */
+    synchronized void giveBack(int quantity) {
+        slots.addAndGet(0, quantity);
+    }
+
+    long available() {
+        long total = 0;
+        for (int i = 0; i < buckets; i++) {
+            total += slots.get(i * PAD);
+        }
+        return total;
+    }
+
+    /**
+     * Stop taking sales, wait for in-flight ones, and return the stock left
+     */
+    long close() {
+        closed = true;
+        awaitQuiescence();
+        synchronized (this) {
+            long total = drain();
+            spread(total);
+            return total;
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Wait until no sale is between enter() and exit()
+     */
+    void awaitQuiescence() {
+        while (inFlight.sum() != 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private long drain() {
+        long total = 0;
+        for (int i = 0; i < buckets; i++) {
+            total += slots.getAndSet(i * PAD, 0);
+        }
+        return total;
+    }
+
+    private void spread(long total) {
+        long share = total / buckets;
+        long extra = total % buckets;
+        for (int i = 0; i < buckets; i++) {
+            slots.addAndGet(i * PAD, share + (i < extra ? 1 : 0));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.inventory.server;
+
+import com.inventory.common.User;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Answers "is this username or email taken?" from a Bloom filter of every
+ * registered username and email, so most checks for a free name never reach
+ * the store. A possible hit is confirmed with one combined store query.
+ *
+ * Keys are folded the way the users table's case- and accent-insensitive
+ * collation compares: compatibility forms and accents are dropped, case is
+ * folded (so a German sharp s matches "ss") and trailing spaces are ignored.
+ * Folding more than the collation only costs a store query; folding less
+ * would answer "available" for a taken name, so the fold errs wide. It is
+ * still a best effort: registration relies on the unique indexes, so a name
+ * the fold misses or a stale filter cannot let a duplicate through, only fail
+ * at sign-up.
+ */
+public class UserAvailability {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern TRAILING_SPACES = Pattern.compile(" +$");
+
+    private final InventoryStore store;
+    private final BloomFilter keys;
+
+    private final AtomicLong filteredOut = new AtomicLong();
+    private final AtomicLong storeChecks = new AtomicLong();
+
+    public UserAvailability(InventoryStore store, int expectedUsers) throws SQLException {
+        this.store = store;
+        List<User> users = store.getAllUsers();
+        // Leave room to grow; past the expected size the false positive rate just rises
+        this.keys = new BloomFilter(Math.max(expectedUsers, users.size() * 2), FALSE_POSITIVE_RATE);
+        for (User user : users) {
+            added(user);
+        }
+        System.out.println("User availability filter loaded with " + users.size() + " users.");
+    }
+
+    public boolean isTaken(String username, String email) throws SQLException {
+        if (!keys.mightContain(usernameKey(username)) && !keys.mightContain(emailKey(email))) {
+            filteredOut.incrementAndGet();
+            return false;
+        }
+        storeChecks.incrementAndGet();
+        return store.userExists(username, email);
+    }
+
+    /**
+     * Record a newly registered user
+     */
+    public void added(User user) {
+        keys.add(usernameKey(user.getUsername()));
+        keys.add(emailKey(user.getEmail()));
+    }
+
+    public String getStats() {
+        return "answeredByFilter=" + filteredOut.get() + ", storeChecks=" + storeChecks.get();
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + fold(username);
+    }
+
+    private static String emailKey(String email) {
+        return "e:" + fold(email);
+    }
+
+    static String fold(String s) {
+        if (s == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFKD)).replaceAll("");
+        // Upper-casing first expands letters like the sharp s to "SS"
+        String folded = stripped.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+        return TRAILING_SPACES.matcher(folded).replaceAll("");
+    }
+}